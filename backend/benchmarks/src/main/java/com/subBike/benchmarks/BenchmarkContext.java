@@ -0,0 +1,113 @@
+package com.subBike.benchmarks;
+
+import com.subBike.server.mapper.SubAmountMapper;
+import com.subBike.server.service.FlowRankingService;
+import com.subBike.server.service.FlowRollupService;
+import com.subBike.server.service.MemorySubAmountService;
+import com.subBike.server.service.MetroDataService;
+import com.subBike.server.service.StationDictionary;
+import com.subBike.server.service.SubAmountService;
+import com.subBike.server.service.store.FlowArchive;
+import com.subBike.server.service.store.FlowPrefixCube;
+import com.subBike.server.service.store.LagFeatureStore;
+import com.subBike.server.service.store.StationFlowStore;
+import com.subBike.server.service.store.StationRanking;
+import com.subBike.server.stream.LiveFlowWindows;
+import com.subBike.server.util.FlowDates;
+import com.subBike.server.util.StationFlowCsvParser;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于内嵌 H2 的最小 Spring 上下文：JPA 仓库 + 地铁客流相关服务，不含 Web、安全、缓存
+ *
+ * 配置见 benchmark.yml；启动后把 CSV 数据写入 sub_amount 并生成汇总表。
+ */
+@Configuration
+@ImportAutoConfiguration({
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        TransactionAutoConfiguration.class
+})
+@EntityScan(basePackages = {"com.subBike.server.entity", "com.subBike.server.entity.id"})
+@EnableJpaRepositories(basePackages = {"com.subBike.server.mapper", "com.subBike.server.repository"})
+@Import({
+        SubAmountService.class,
+        MemorySubAmountService.class,
+        StationFlowStore.class,
+        FlowArchive.class,
+        MetroDataService.class,
+        LagFeatureStore.class,
+        FlowRankingService.class,
+        StationRanking.class,
+        FlowPrefixCube.class,
+        FlowRollupService.class,
+        StationDictionary.class,
+        LiveFlowWindows.class,
+        GroupBySubAmountService.class
+})
+public class BenchmarkContext {
+    private static final String INSERT_SQL =
+            "INSERT INTO sub_amount (date, station, time, in_num, out_num) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * 启动上下文并导入全部 CSV 数据
+     */
+    public static ConfigurableApplicationContext start() throws IOException {
+        return start(new SpringApplicationBuilder(BenchmarkContext.class).web(WebApplicationType.NONE));
+    }
+
+    /**
+     * 用调用方给出的 builder 启动（可追加配置类、改为 Web 应用），再导入全部 CSV 数据
+     */
+    public static ConfigurableApplicationContext start(SpringApplicationBuilder builder) throws IOException {
+        // 类路径上有 devtools，基准测试中关闭重启
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = builder
+                .properties("spring.config.name=benchmark")
+                .logStartupInfo(false)
+                .run();
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        List<LocalDate> dates = new ArrayList<>();
+        for (Map.Entry<LocalDate, byte[]> file : Fixtures.csvFiles().entrySet()) {
+            Date date = FlowDates.toSqlDate(file.getKey());
+            List<Object[]> rows = new ArrayList<>();
+            StationFlowCsvParser.parse(ByteBuffer.wrap(file.getValue()), (station, hour, in, out, end) ->
+                    rows.add(new Object[]{date, station, hour, in, out}));
+            jdbc.batchUpdate(INSERT_SQL, rows);
+            dates.add(file.getKey());
+        }
+        context.getBean(FlowRollupService.class).rebuild(dates);
+        context.getBean(StationFlowStore.class).ensureLoaded();
+        return context;
+    }
+
+    /**
+     * 汇总表之前的实现：每次查询都对 sub_amount 做 GROUP BY
+     */
+    public static SubAmountMapper groupByMapper(ConfigurableApplicationContext context) {
+        return context.getBean(SubAmountMapper.class);
+    }
+}
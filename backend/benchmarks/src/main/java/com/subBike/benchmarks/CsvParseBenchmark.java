@@ -0,0 +1,65 @@
+package com.subBike.benchmarks;
+
+import com.opencsv.CSVReader;
+import com.subBike.server.util.StationFlowCsvParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV 解析：CsvImportApplication 使用的 StationFlowCsvParser 对比 CsvImportService 使用的 opencsv
+ *
+ * 数据在内存中，不含磁盘 IO；一次调用解析全部 22 个文件。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParseBenchmark {
+    private List<byte[]> files;
+
+    @Setup
+    public void setUp() throws Exception {
+        files = new ArrayList<>(Fixtures.csvFiles().values());
+    }
+
+    @Benchmark
+    public long stationFlowCsvParser(Blackhole bh) {
+        long sum = 0;
+        for (byte[] file : files) {
+            long[] acc = new long[1];
+            StationFlowCsvParser.parse(ByteBuffer.wrap(file), (station, hour, in, out, end) -> {
+                bh.consume(station);
+                acc[0] += hour + in + out;
+            });
+            sum += acc[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long openCsv(Blackhole bh) throws Exception {
+        long sum = 0;
+        for (byte[] file : files) {
+            try (CSVReader reader = new CSVReader(new InputStreamReader(new ByteArrayInputStream(file),
+                    StandardCharsets.UTF_8))) {
+                reader.readNext();
+                String[] line;
+                while ((line = reader.readNext()) != null) {
+                    bh.consume(line[0]);
+                    sum += Integer.parseInt(line[1]) + Integer.parseInt(line[2]) + Integer.parseInt(line[3]);
+                }
+            }
+        }
+        return sum;
+    }
+}
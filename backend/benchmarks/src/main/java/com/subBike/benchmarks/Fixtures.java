@@ -0,0 +1,77 @@
+package com.subBike.benchmarks;
+
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.util.StationFlowCsvParser;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 基准测试数据：server 模块 resources/csv/subway 下的 station_flow_*.csv（随 server jar 在类路径上）
+ */
+public final class Fixtures {
+    private static final String CSV_PATTERN = "classpath*:csv/subway/" + StationFlowCsvParser.FILE_PREFIX + "*"
+            + StationFlowCsvParser.FILE_SUFFIX;
+
+    private static volatile NavigableMap<LocalDate, byte[]> files;
+
+    private Fixtures() {
+    }
+
+    /**
+     * 日期 → 文件内容，按日期排序
+     */
+    public static NavigableMap<LocalDate, byte[]> csvFiles() throws IOException {
+        if (files == null) {
+            synchronized (Fixtures.class) {
+                if (files == null) {
+                    NavigableMap<LocalDate, byte[]> loaded = new TreeMap<>();
+                    for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CSV_PATTERN)) {
+                        try (InputStream in = resource.getInputStream()) {
+                            loaded.put(StationFlowCsvParser.dateOf(resource.getFilename()), in.readAllBytes());
+                        }
+                    }
+                    if (loaded.isEmpty()) {
+                        throw new IllegalStateException("类路径上没有找到 " + CSV_PATTERN);
+                    }
+                    files = Collections.unmodifiableNavigableMap(loaded);
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 某天各站点的全天合计，顺序为站点在文件中首次出现的顺序
+     */
+    public static List<AmountDto> stationTotals(LocalDate date) throws IOException {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        StationFlowCsvParser.parse(ByteBuffer.wrap(csvFiles().get(date)), (station, hour, in, out, end) -> {
+            long[] t = totals.computeIfAbsent(station, s -> new long[2]);
+            t[0] += in;
+            t[1] += out;
+        });
+        List<AmountDto> list = new ArrayList<>(totals.size());
+        totals.forEach((station, t) -> list.add(new AmountDto(station, t[0], t[1])));
+        return list;
+    }
+
+    /**
+     * 给 @Value / @Autowired 的私有字段赋值
+     */
+    public static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
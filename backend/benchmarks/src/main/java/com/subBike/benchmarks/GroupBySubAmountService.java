@@ -0,0 +1,55 @@
+package com.subBike.benchmarks;
+
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.entity.dto.DateAmountDto;
+import com.subBike.server.entity.dto.TimeAmountDto;
+import com.subBike.server.entity.dto.TimeSlotDto;
+import com.subBike.server.mapper.SubAmountMapper;
+import com.subBike.server.service.ISubAmountService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 引入汇总表之前的 SubAmountService：直接调用 SubAmountMapper 的 GROUP BY 查询，作为对比基线
+ */
+public class GroupBySubAmountService implements ISubAmountService {
+    @Autowired
+    SubAmountMapper subAmountmapper;
+
+    @Override
+    public List<AmountDto> findByDate(Date date) {
+        return subAmountmapper.findByDate(date);
+    }
+
+    @Override
+    public List<DateAmountDto> findTotal() {
+        return subAmountmapper.findTotal();
+    }
+
+    @Override
+    public List<DateAmountDto> getWeeklyTotals(String station, Date endDate) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(endDate);
+        calendar.add(Calendar.DAY_OF_YEAR, -6);
+        return subAmountmapper.getWeeklyTotals(station, calendar.getTime(), endDate);
+    }
+
+    @Override
+    public List<AmountDto> getMap(Date date) {
+        return subAmountmapper.getMap(date);
+    }
+
+    @Override
+    public List<TimeAmountDto> getTrend(Date date) {
+        return subAmountmapper.getTrend(date);
+    }
+
+    @Override
+    public List<TimeSlotDto> getpredict(LocalDate date, String station) {
+        return subAmountmapper.getpredict(date, station);
+    }
+}
@@ -0,0 +1,68 @@
+package com.subBike.benchmarks;
+
+import com.subBike.server.security.jwt.JwtUserCache;
+import com.subBike.server.security.jwt.JwtUtils;
+import com.subBike.server.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个带 Authorization 头的请求都会经过 AuthTokenFilter 校验令牌
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+    // 与 application.yml 中 spring.jwt.secret 相同长度的测试密钥
+    private static final String SECRET = "2zS+wA/4cApOKSJ+vYODpF83IeU1x+HH2keLluNBFLk=";
+
+    private JwtUtils jwtUtils;
+    private JwtUserCache userCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        Fixtures.setField(jwtUtils, "jwtSecret", SECRET);
+        Fixtures.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        jwtUtils.init();
+        UserDetailsImpl user = new UserDetailsImpl(1L, "bench", "bench@example.com", "",
+                new SimpleGrantedAuthority("ROLE_USER"));
+        token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        userCache = new JwtUserCache(10000, Duration.ofMinutes(5));
+        userCache.put(token, user, jwtUtils.parseClaims(token).getExpiration());
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String validateAndGetUserName() {
+        // 校验后再取用户名：解析两次
+        return jwtUtils.validateJwtToken(token) ? jwtUtils.getUserNameFromJwtToken(token) : null;
+    }
+
+    @Benchmark
+    public String parseClaims() {
+        // AuthTokenFilter 缓存未命中时的路径：解析一次
+        Claims claims = jwtUtils.parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    @Benchmark
+    public UserDetails cachedUser() {
+        // AuthTokenFilter 缓存命中时的路径
+        return userCache.get(token);
+    }
+}
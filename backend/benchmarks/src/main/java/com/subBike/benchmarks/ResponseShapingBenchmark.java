@@ -0,0 +1,181 @@
+package com.subBike.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subBike.server.config.StationValuesHttpMessageConverter;
+import com.subBike.server.controller.SubAmountController;
+import com.subBike.server.entity.dto.*;
+import com.subBike.server.service.ISubAmountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * SubAmountController.getAmount / getMap 的响应构造与序列化（不含查询）
+ *
+ * legacyMaps 为原来的写法：复制列表，每站一个 HashMap，再交给 Jackson；
+ * streaming / columnar 为控制器当前返回的 StationValues 经 StationValuesHttpMessageConverter 写出。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseG1GC")
+public class ResponseShapingBenchmark {
+
+    @Param({"in", "out", "total"})
+    public String request;
+
+    /** date：前 10 站；map：全部站点 */
+    @Param({"date", "map"})
+    public String view;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StationValuesHttpMessageConverter converter = new StationValuesHttpMessageConverter();
+    private final CountingOutput output = new CountingOutput();
+
+    private SubAmountController controller;
+    private List<AmountDto> rows;
+    private Date date;
+
+    @Setup
+    public void setUp() throws IOException {
+        LocalDate day = Fixtures.csvFiles().firstKey();
+        List<AmountDto> all = Fixtures.stationTotals(day);
+        if ("date".equals(view)) {
+            all.sort((a, b) -> Long.compare(b.getInNum() + b.getOutNum(), a.getInNum() + a.getOutNum()));
+            rows = new ArrayList<>(all.subList(0, Math.min(10, all.size())));
+        } else {
+            rows = all;
+        }
+        date = java.sql.Date.valueOf(day);
+        controller = new SubAmountController();
+        Fixtures.setField(controller, "subService", new FixedSubAmountService(rows));
+    }
+
+    @Benchmark
+    public long legacyMaps() throws IOException {
+        List<AmountDto> sublist = new ArrayList<>(rows);
+        List<Map<String, Long>> list = new ArrayList<>();
+        if (request.equals("in")) {
+            for (AmountDto dto : sublist) {
+                Map<String, Long> innerMap = new HashMap<>();
+                innerMap.put(dto.getStation(), dto.getInNum());
+                list.add(innerMap);
+            }
+        } else if (request.equals("out")) {
+            for (AmountDto dto : sublist) {
+                Map<String, Long> innerMap = new HashMap<>();
+                innerMap.put(dto.getStation(), dto.getOutNum());
+                list.add(innerMap);
+            }
+        } else {
+            for (AmountDto dto : sublist) {
+                Map<String, Long> innerMap = new HashMap<>();
+                innerMap.put(dto.getStation(), dto.getInNum() + dto.getOutNum());
+                list.add(innerMap);
+            }
+        }
+        output.reset();
+        objectMapper.writeValue(output, list);
+        return output.count;
+    }
+
+    @Benchmark
+    public long streaming() throws IOException {
+        ResponseEntity<?> response = "date".equals(view)
+                ? controller.getAmount(date, request)
+                : controller.getMap(date, request);
+        return write((StationValues) response.getBody());
+    }
+
+    @Benchmark
+    public long columnar() throws IOException {
+        return write((StationValues) controller.getMapColumnar(date, request).getBody());
+    }
+
+    private long write(StationValues values) throws IOException {
+        output.reset();
+        converter.write(values, MediaType.APPLICATION_JSON, output);
+        return output.count;
+    }
+
+    /**
+     * 只计字节数的响应体
+     */
+    private static final class CountingOutput extends OutputStream implements HttpOutputMessage {
+        long count;
+
+        void reset() {
+            count = 0;
+        }
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return this;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+    }
+
+    /**
+     * 返回固定数据的服务，隔离掉查询开销
+     */
+    private static final class FixedSubAmountService implements ISubAmountService {
+        private final List<AmountDto> rows;
+
+        FixedSubAmountService(List<AmountDto> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public List<AmountDto> findByDate(Date date) {
+            return rows;
+        }
+
+        @Override
+        public List<DateAmountDto> findTotal() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<DateAmountDto> getWeeklyTotals(String station, Date endDate) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<AmountDto> getMap(Date date) {
+            return rows;
+        }
+
+        @Override
+        public List<TimeAmountDto> getTrend(Date date) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<TimeSlotDto> getpredict(LocalDate date, String station) {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.subBike.benchmarks;
+
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.entity.dto.DateAmountDto;
+import com.subBike.server.entity.dto.TimeAmountDto;
+import com.subBike.server.service.ISubAmountService;
+import com.subBike.server.service.MemorySubAmountService;
+import com.subBike.server.service.SubAmountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 地铁客流聚合查询，数据为 resources/csv/subway 全部文件（H2 内存库）
+ *
+ * engine：groupby 为逐小时行 GROUP BY（原实现），rollup 为 SubAmountService 读汇总表，
+ * memory 为 MemorySubAmountService。不启用缓存，测的是未命中时的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubAmountServiceBenchmark {
+
+    @Param({"groupby", "rollup", "memory"})
+    public String engine;
+
+    private ConfigurableApplicationContext context;
+    private ISubAmountService service;
+    private Date date;
+    private Date weekEnd;
+    private String station;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        switch (engine) {
+            case "groupby":
+                service = context.getBean(GroupBySubAmountService.class);
+                break;
+            case "rollup":
+                service = context.getBean(SubAmountService.class);
+                break;
+            case "memory":
+                service = context.getBean(MemorySubAmountService.class);
+                break;
+            default:
+                throw new IllegalArgumentException(engine);
+        }
+        LocalDate first = Fixtures.csvFiles().firstKey();
+        date = java.sql.Date.valueOf(first);
+        weekEnd = java.sql.Date.valueOf(first.plusDays(6));
+        station = Fixtures.stationTotals(first).get(0).getStation();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AmountDto> findByDate() {
+        return service.findByDate(date);
+    }
+
+    @Benchmark
+    public List<DateAmountDto> findTotal() {
+        return service.findTotal();
+    }
+
+    @Benchmark
+    public List<DateAmountDto> getWeeklyTotals() {
+        return service.getWeeklyTotals(station, weekEnd);
+    }
+
+    @Benchmark
+    public List<AmountDto> getMap() {
+        return service.getMap(date);
+    }
+
+    @Benchmark
+    public List<TimeAmountDto> getTrend() {
+        return service.getTrend(date);
+    }
+}
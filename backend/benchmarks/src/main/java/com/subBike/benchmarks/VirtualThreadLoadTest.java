@@ -0,0 +1,202 @@
+package com.subBike.benchmarks;
+
+import com.subBike.server.config.JdbcConcurrencyConfig;
+import com.subBike.server.service.SubAmountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 平台线程 / 虚拟线程两种模式下的 HTTP 压测（不是 JMH 基准）
+ *
+ * 每个请求在只读事务里先休眠 rtt 毫秒再查询 SubAmountService.findByDate，
+ * 模拟远程 MySQL 的往返耗时，休眠期间连接保持占用。连接池大小 pool 大于 Tomcat 默认的 200 个线程，
+ * 平台线程模式下并发受线程数限制；虚拟线程模式下受连接池（信号量）限制。
+ *
+ * java -cp target/benchmarks.jar com.subBike.benchmarks.VirtualThreadLoadTest
+ *   -Dclients=1000 -Dseconds=15 -Dwarmup=5 -Drtt=20 -Dpool=400
+ * 虚拟线程模式需在 Java 21 上运行，Java 17 上只跑平台线程模式。
+ */
+public final class VirtualThreadLoadTest {
+    private static final int MAX_LATENCY_MS = 60_000;
+
+    private VirtualThreadLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("clients", 1000);
+        int seconds = Integer.getInteger("seconds", 15);
+        int warmup = Integer.getInteger("warmup", 5);
+        int rtt = Integer.getInteger("rtt", 20);
+        int pool = Integer.getInteger("pool", 400);
+
+        System.out.printf("clients=%d, rtt=%d ms, pool=%d, %d s warmup + %d s measured%n",
+                clients, rtt, pool, warmup, seconds);
+        System.out.printf("%-9s %10s %10s %8s %8s %8s %8s%n", "mode", "requests", "req/s", "p50", "p99", "max", "errors");
+        run("platform", false, clients, seconds, warmup, rtt, pool);
+        if (Runtime.version().feature() >= 21) {
+            run("virtual", true, clients, seconds, warmup, rtt, pool);
+        } else {
+            System.out.printf("%-9s skipped: needs Java 21, running on %s%n", "virtual", Runtime.version());
+        }
+    }
+
+    private static void run(String mode, boolean virtual, int clients, int seconds, int warmup,
+                            int rtt, int pool) throws Exception {
+        ConfigurableApplicationContext context = BenchmarkContext.start(
+                new SpringApplicationBuilder(BenchmarkContext.class, Web.class)
+                        .web(WebApplicationType.SERVLET)
+                        .properties(
+                                "server.port=0",
+                                // 每种模式独立的内存库，互不影响
+                                "spring.datasource.url=jdbc:h2:mem:load-" + mode
+                                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                                "spring.datasource.hikari.maximum-pool-size=" + pool,
+                                "spring.threads.virtual.enabled=" + virtual,
+                                "subway.jdbc.limit.enabled=" + virtual,
+                                "loadtest.rtt=" + rtt));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Result result = drive(URI.create("http://127.0.0.1:" + port + "/load"), clients, seconds, warmup);
+            System.out.printf("%-9s %10d %10.0f %6d ms %6d ms %6d ms %8d%n", mode, result.count,
+                    result.count / (double) seconds, result.percentile(0.50), result.percentile(0.99),
+                    result.max, result.errors.get());
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * clients 个客户端各自串行发请求（收到响应再发下一个），只统计预热之后发出的请求
+     */
+    private static Result drive(URI uri, int clients, int seconds, int warmup) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long measureFrom = System.nanoTime() + warmup * 1_000_000_000L;
+        long deadline = measureFrom + seconds * 1_000_000_000L;
+        Result result = new Result();
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            send(client, request, measureFrom, deadline, result, done);
+        }
+        done.await();
+        executor.shutdownNow();
+        return result;
+    }
+
+    private static void send(HttpClient client, HttpRequest request, long measureFrom, long deadline,
+                             Result result, CountDownLatch done) {
+        long start = System.nanoTime();
+        if (start >= deadline) {
+            done.countDown();
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (start >= measureFrom) {
+                if (error != null || response.statusCode() != 200) {
+                    result.errors.incrementAndGet();
+                } else {
+                    result.record((System.nanoTime() - start) / 1_000_000);
+                }
+            }
+            send(client, request, measureFrom, deadline, result, done);
+        });
+    }
+
+    /**
+     * 按毫秒分桶的延迟直方图
+     */
+    private static final class Result {
+        final AtomicLongArray buckets = new AtomicLongArray(MAX_LATENCY_MS + 1);
+        final AtomicLong errors = new AtomicLong();
+        long count;
+        long max;
+
+        synchronized void record(long millis) {
+            buckets.incrementAndGet((int) Math.min(millis, MAX_LATENCY_MS));
+            count++;
+            max = Math.max(max, millis);
+        }
+
+        synchronized long percentile(double p) {
+            long target = (long) Math.ceil(count * p);
+            long seen = 0;
+            for (int i = 0; i <= MAX_LATENCY_MS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target && seen > 0) {
+                    return i;
+                }
+            }
+            return max;
+        }
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class,
+            TaskExecutionAutoConfiguration.class
+    })
+    @Import({JdbcConcurrencyConfig.class, LoadController.class})
+    public static class Web {
+    }
+
+    @RestController
+    public static class LoadController {
+        @Autowired
+        private SubAmountService subAmountService;
+
+        @Value("${loadtest.rtt:20}")
+        private long rtt;
+
+        private final Date date;
+
+        public LoadController() throws IOException {
+            date = java.sql.Date.valueOf(Fixtures.csvFiles().firstKey());
+        }
+
+        @GetMapping("/load")
+        @Transactional(readOnly = true)
+        public int load() throws InterruptedException {
+            // 只读事务开始时已取得连接，休眠期间一直占用
+            Thread.sleep(rtt);
+            return subAmountService.findByDate(date).size();
+        }
+    }
+}
@@ -5,11 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @EntityScan(basePackages = {"com.subBike.server.entity", "com.subBike.server.entity.id"})
-@EnableJpaRepositories(basePackages = {"com.subBike.server.mapper"})
+@EnableJpaRepositories(basePackages = {"com.subBike.server.mapper", "com.subBike.server.repository"})
 @SpringBootApplication
+@EnableScheduling
 
 public class SuBikeApplication {
     //添加静态初始块
@@ -0,0 +1,280 @@
+package com.subBike.server.batch;
+
+import com.subBike.server.entity.BikeAmount;
+import com.subBike.server.entity.SubAmount;
+import com.subBike.server.event.FlowDataChangedEvent;
+import com.subBike.server.util.StationFlowCsvParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.partition.support.MultiResourcePartitioner;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.sql.Date;
+
+/**
+ * CSV 导入的 Spring Batch 作业
+ *
+ * - subwayImportJob：每个 station_flow_*.csv 一个分区
+ * - bikeImportJob：bike_amount.csv 按数据行切成 grid-size 个分区
+ *
+ * 分区在 import-threads 个线程上并行，每个分区按 chunk-size 行一批读取并用 JDBC 批量 upsert，
+ * 格式错误的行跳过（最多 skip-limit 行）。作业元数据存于 BATCH_* 表，
+ * 失败后以相同参数再次启动时只重跑未完成的分区，且从分区内最后一次提交的位置继续。
+ */
+@Configuration
+public class ImportJobConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobConfig.class);
+
+    public static final String SUBWAY_JOB = "subwayImportJob";
+    public static final String BIKE_JOB = "bikeImportJob";
+
+    private static final String SUBWAY_UPSERT_SQL =
+            "INSERT INTO sub_amount (date, station, time, in_num, out_num) VALUES (?, ?, ?, ?, ?)"
+                    + " ON DUPLICATE KEY UPDATE in_num = VALUES(in_num), out_num = VALUES(out_num)";
+    private static final String BIKE_UPSERT_SQL =
+            "INSERT INTO bike_amount (station, date, number, geohash, lng, lat) VALUES (?, ?, ?, ?, ?, ?)"
+                    + " ON DUPLICATE KEY UPDATE number = VALUES(number), geohash = VALUES(geohash),"
+                    + " lng = VALUES(lng), lat = VALUES(lat)";
+
+    @Value("${subway.batch.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${subway.batch.import-threads:4}")
+    private int importThreads;
+
+    @Value("${subway.batch.grid-size:4}")
+    private int gridSize;
+
+    @Value("${subway.batch.skip-limit:100}")
+    private int skipLimit;
+
+    // ---------------- 地铁客流 ----------------
+
+    @Bean
+    public Job subwayImportJob(JobRepository jobRepository, Step subwayPartitionStep) {
+        return new JobBuilder(SUBWAY_JOB, jobRepository)
+                .start(subwayPartitionStep)
+                .build();
+    }
+
+    @Bean
+    public Step subwayPartitionStep(JobRepository jobRepository, Step subwayFileStep,
+                                    MultiResourcePartitioner subwayPartitioner) {
+        return new StepBuilder("subwayPartitionStep", jobRepository)
+                .partitioner(subwayFileStep.getName(), subwayPartitioner)
+                .step(subwayFileStep)
+                .taskExecutor(importTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public MultiResourcePartitioner subwayPartitioner(
+            ResourcePatternResolver resolver,
+            @Value("#{jobParameters['files']}") String files) throws IOException {
+        MultiResourcePartitioner partitioner = new MultiResourcePartitioner();
+        partitioner.setResources(resolver.getResources(files));
+        partitioner.setKeyName(LineRangePartitioner.FILE_NAME);
+        return partitioner;
+    }
+
+    @Bean
+    public Step subwayFileStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                               FlatFileItemReader<SubAmount> subwayFileReader,
+                               JdbcBatchItemWriter<SubAmount> subwayWriter,
+                               ApplicationEventPublisher publisher) {
+        ImportedDatesListener<SubAmount> datesListener = new ImportedDatesListener<>(
+                FlowDataChangedEvent.Dataset.SUBWAY, SubAmount::getDate, publisher);
+        return new StepBuilder("subwayFileStep", jobRepository)
+                .<SubAmount, SubAmount>chunk(chunkSize, transactionManager)
+                .reader(subwayFileReader)
+                .writer(subwayWriter)
+                .faultTolerant()
+                .skip(FlatFileParseException.class)
+                .skipLimit(skipLimit)
+                .listener(skipLogger())
+                .listener((ItemWriteListener<SubAmount>) datesListener)
+                .listener((StepExecutionListener) datesListener)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemReader<SubAmount> subwayFileReader(
+            @Value("#{stepExecutionContext['fileName']}") String fileName) throws MalformedURLException {
+        Date date = Date.valueOf(StationFlowCsvParser.dateOf(fileName.substring(fileName.lastIndexOf('/') + 1)));
+        return new FlatFileItemReaderBuilder<SubAmount>()
+                .name("subwayFileReader")
+                .resource(new UrlResource(fileName))
+                .encoding("UTF-8")
+                .linesToSkip(1)
+                .delimited()
+                .names("station", "hour", "in_count", "out_count")
+                .fieldSetMapper(fields -> {
+                    SubAmount row = new SubAmount();
+                    row.setDate(date);
+                    row.setStation(fields.readString("station"));
+                    row.setTime(fields.readInt("hour"));
+                    row.setInNum(fields.readInt("in_count"));
+                    row.setOutNum(fields.readInt("out_count"));
+                    return row;
+                })
+                .build();
+    }
+
+    @Bean
+    public JdbcBatchItemWriter<SubAmount> subwayWriter(DataSource dataSource) {
+        return new JdbcBatchItemWriterBuilder<SubAmount>()
+                .dataSource(dataSource)
+                .sql(SUBWAY_UPSERT_SQL)
+                .itemPreparedStatementSetter((row, ps) -> {
+                    ps.setDate(1, row.getDate());
+                    ps.setString(2, row.getStation());
+                    ps.setInt(3, row.getTime());
+                    ps.setInt(4, row.getInNum());
+                    ps.setInt(5, row.getOutNum());
+                })
+                .assertUpdates(false)
+                .build();
+    }
+
+    // ---------------- 单车数量 ----------------
+
+    @Bean
+    public Job bikeImportJob(JobRepository jobRepository, Step bikePartitionStep) {
+        return new JobBuilder(BIKE_JOB, jobRepository)
+                .start(bikePartitionStep)
+                .build();
+    }
+
+    @Bean
+    public Step bikePartitionStep(JobRepository jobRepository, Step bikeRangeStep,
+                                  LineRangePartitioner bikePartitioner) {
+        return new StepBuilder("bikePartitionStep", jobRepository)
+                .partitioner(bikeRangeStep.getName(), bikePartitioner)
+                .step(bikeRangeStep)
+                .gridSize(gridSize)
+                .taskExecutor(importTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public LineRangePartitioner bikePartitioner(ResourcePatternResolver resolver,
+                                                @Value("#{jobParameters['files']}") String file) {
+        Resource resource = resolver.getResource(file);
+        return new LineRangePartitioner(resource);
+    }
+
+    @Bean
+    public Step bikeRangeStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                              FlatFileItemReader<BikeAmount> bikeRangeReader,
+                              JdbcBatchItemWriter<BikeAmount> bikeWriter,
+                              ApplicationEventPublisher publisher) {
+        ImportedDatesListener<BikeAmount> datesListener = new ImportedDatesListener<>(
+                FlowDataChangedEvent.Dataset.BIKE, BikeAmount::getDate, publisher);
+        return new StepBuilder("bikeRangeStep", jobRepository)
+                .<BikeAmount, BikeAmount>chunk(chunkSize, transactionManager)
+                .reader(bikeRangeReader)
+                .writer(bikeWriter)
+                .faultTolerant()
+                .skip(FlatFileParseException.class)
+                .skipLimit(skipLimit)
+                .listener(skipLogger())
+                .listener((ItemWriteListener<BikeAmount>) datesListener)
+                .listener((StepExecutionListener) datesListener)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemReader<BikeAmount> bikeRangeReader(
+            @Value("#{stepExecutionContext['fileName']}") String fileName,
+            @Value("#{stepExecutionContext['startItem']}") Integer startItem,
+            @Value("#{stepExecutionContext['endItem']}") Integer endItem) throws MalformedURLException {
+        return new FlatFileItemReaderBuilder<BikeAmount>()
+                .name("bikeRangeReader")
+                .resource(new UrlResource(fileName))
+                .encoding("UTF-8")
+                .linesToSkip(1)
+                .delimited()
+                .names("station_name", "geohash", "bike_count", "date", "lng", "lat")
+                .fieldSetMapper(fields -> {
+                    BikeAmount row = new BikeAmount(
+                            fields.readString("station_name"),
+                            Date.valueOf(fields.readString("date")),
+                            fields.readLong("bike_count"));
+                    row.setGeohash(fields.readString("geohash"));
+                    row.setLng(fields.readDouble("lng"));
+                    row.setLat(fields.readDouble("lat"));
+                    return row;
+                })
+                .currentItemCount(startItem)
+                .maxItemCount(endItem)
+                .build();
+    }
+
+    @Bean
+    public JdbcBatchItemWriter<BikeAmount> bikeWriter(DataSource dataSource) {
+        return new JdbcBatchItemWriterBuilder<BikeAmount>()
+                .dataSource(dataSource)
+                .sql(BIKE_UPSERT_SQL)
+                .itemPreparedStatementSetter((row, ps) -> {
+                    ps.setString(1, row.getStation());
+                    ps.setDate(2, row.getDate());
+                    ps.setLong(3, row.getNumber());
+                    ps.setString(4, row.getGeohash());
+                    ps.setDouble(5, row.getLng());
+                    ps.setDouble(6, row.getLat());
+                })
+                .assertUpdates(false)
+                .build();
+    }
+
+    // ---------------- 公共 ----------------
+
+    private TaskExecutor importTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("batch-import-");
+        executor.setConcurrencyLimit(importThreads);
+        return executor;
+    }
+
+    private static SkipListener<Object, Object> skipLogger() {
+        return new SkipListener<>() {
+            @Override
+            public void onSkipInRead(Throwable t) {
+                if (t instanceof FlatFileParseException) {
+                    FlatFileParseException e = (FlatFileParseException) t;
+                    logger.warn("Skipped malformed line {} ({}): {}", e.getLineNumber(), e.getInput(),
+                            e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+                }
+            }
+        };
+    }
+}
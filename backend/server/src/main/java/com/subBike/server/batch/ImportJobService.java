@@ -0,0 +1,63 @@
+package com.subBike.server.batch;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 启动导入作业
+ *
+ * 作业实例由 files 参数确定：同一组文件上次失败时再次启动即为重启，已完成的分区不会重跑；
+ * 上次已成功时需要 force=true 才会作为新实例重新导入。
+ */
+@Service
+public class ImportJobService {
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    @Qualifier(ImportJobConfig.SUBWAY_JOB)
+    private Job subwayImportJob;
+
+    @Autowired
+    @Qualifier(ImportJobConfig.BIKE_JOB)
+    private Job bikeImportJob;
+
+    @Value("${subway.batch.subway-files:classpath:csv/subway/station_flow_*.csv}")
+    private String defaultSubwayFiles;
+
+    @Value("${subway.batch.bike-file:classpath:csv/bike/bike_amount.csv}")
+    private String defaultBikeFile;
+
+    /**
+     * @param files 资源路径模式，为空时使用 subway.batch.subway-files
+     */
+    public JobExecution importSubway(String files, boolean force) throws JobExecutionException {
+        return jobLauncher.run(subwayImportJob,
+                parameters(files == null || files.isEmpty() ? defaultSubwayFiles : files, force));
+    }
+
+    /**
+     * @param file 资源路径，为空时使用 subway.batch.bike-file
+     */
+    public JobExecution importBike(String file, boolean force) throws JobExecutionException {
+        return jobLauncher.run(bikeImportJob,
+                parameters(file == null || file.isEmpty() ? defaultBikeFile : file, force));
+    }
+
+    private static JobParameters parameters(String files, boolean force) {
+        JobParametersBuilder builder = new JobParametersBuilder().addString("files", files);
+        if (force) {
+            builder.addLong("requestedAt", System.currentTimeMillis());
+        }
+        return builder.toJobParameters();
+    }
+}
@@ -0,0 +1,57 @@
+package com.subBike.server.batch;
+
+import com.subBike.server.event.FlowDataChangedEvent;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 记录分区步骤写入过的日期，步骤结束后发布 FlowDataChangedEvent（汇总表、站点 id、缓存据此刷新）
+ * 多个分区并发执行，按 StepExecution 分开记录。
+ */
+public class ImportedDatesListener<T> implements ItemWriteListener<T>, StepExecutionListener {
+
+    private final FlowDataChangedEvent.Dataset dataset;
+    private final Function<T, Date> dateOf;
+    private final ApplicationEventPublisher publisher;
+    private final ConcurrentHashMap<Long, Set<LocalDate>> written = new ConcurrentHashMap<>();
+
+    public ImportedDatesListener(FlowDataChangedEvent.Dataset dataset, Function<T, Date> dateOf,
+                                 ApplicationEventPublisher publisher) {
+        this.dataset = dataset;
+        this.dateOf = dateOf;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void afterWrite(Chunk<? extends T> items) {
+        Set<LocalDate> dates = written.computeIfAbsent(currentStepExecutionId(), id -> ConcurrentHashMap.newKeySet());
+        for (T item : items) {
+            dates.add(dateOf.apply(item).toLocalDate());
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        Set<LocalDate> dates = written.remove(stepExecution.getId());
+        // 失败的分区也可能已提交部分数据
+        if (dates != null && !dates.isEmpty()) {
+            publisher.publishEvent(new FlowDataChangedEvent(this, dataset, dates));
+        }
+        return null;
+    }
+
+    private static Long currentStepExecutionId() {
+        return StepSynchronizationManager.getContext().getStepExecution().getId();
+    }
+}
@@ -0,0 +1,66 @@
+package com.subBike.server.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 把单个 CSV 文件按数据行切成 gridSize 段，每段一个分区
+ *
+ * 分区上下文中 startItem/endItem 为数据行序号（不含表头，左闭右开），
+ * 由读取器的 currentItemCount / maxItemCount 限定读取范围。
+ */
+public class LineRangePartitioner implements Partitioner {
+    public static final String FILE_NAME = "fileName";
+    public static final String START_ITEM = "startItem";
+    public static final String END_ITEM = "endItem";
+
+    private final Resource resource;
+
+    public LineRangePartitioner(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        int items = countLines() - 1;
+        int partitions = Math.max(1, Math.min(gridSize, items));
+        int perPartition = (items + partitions - 1) / partitions;
+        Map<String, ExecutionContext> result = new HashMap<>();
+        String fileName;
+        try {
+            fileName = resource.getURL().toExternalForm();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = 0; i < partitions; i++) {
+            ExecutionContext context = new ExecutionContext();
+            context.putString(FILE_NAME, fileName);
+            context.putInt(START_ITEM, i * perPartition);
+            context.putInt(END_ITEM, Math.min(items, (i + 1) * perPartition));
+            result.put("partition" + i, context);
+        }
+        return result;
+    }
+
+    private int countLines() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            int lines = 0;
+            while (reader.readLine() != null) {
+                lines++;
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
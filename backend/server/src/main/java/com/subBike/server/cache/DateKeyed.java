@@ -0,0 +1,17 @@
+package com.subBike.server.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注缓存方法的结果覆盖的日期范围，用于按日期失效
+ *
+ * 以方法第一个日期参数为结束日，向前共 span 天；方法没有日期参数时视为覆盖全部日期。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DateKeyed {
+    int span() default 1;
+}
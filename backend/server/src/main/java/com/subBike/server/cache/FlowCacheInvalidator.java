@@ -0,0 +1,59 @@
+package com.subBike.server.cache;
+
+import com.subBike.server.event.FlowDataChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 数据写入后按日期失效对应缓存
+ */
+@Component
+public class FlowCacheInvalidator {
+    private static final Logger logger = LoggerFactory.getLogger(FlowCacheInvalidator.class);
+
+    public static final String SUBWAY = "subway";
+    public static final String BIKE = "bike";
+    public static final String PREDICT = "predict";
+    public static final List<String> NAMES = List.of(SUBWAY, BIKE, PREDICT);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @EventListener
+    public void onDataChanged(FlowDataChangedEvent event) {
+        evictDates(event.getDataset(), event.getDates());
+    }
+
+    /**
+     * 失效某个数据集覆盖这些日期的缓存条目
+     */
+    public void evictDates(FlowDataChangedEvent.Dataset dataset, Collection<LocalDate> dates) {
+        String name;
+        switch (dataset) {
+            case SUBWAY:
+                name = SUBWAY;
+                break;
+            case BIKE:
+                name = BIKE;
+                break;
+            default:
+                name = PREDICT;
+        }
+        Cache cache = cacheManager.getCache(name);
+        if (cache instanceof TwoLevelCache) {
+            ((TwoLevelCache) cache).evictDates(dates);
+            logger.debug("Evicted cache {} for dates {}", name, dates);
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+}
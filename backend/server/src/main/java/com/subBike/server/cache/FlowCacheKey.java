@@ -0,0 +1,69 @@
+package com.subBike.server.cache;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 缓存键：方法名 + 参数，附带结果覆盖的日期范围 [from, to]
+ * from/to 为 null 表示结果依赖全部日期（如 findTotal），任何日期变化都要失效。
+ */
+public final class FlowCacheKey {
+    private final String method;
+    private final Object[] args;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final String text;
+
+    public FlowCacheKey(String method, Object[] args, LocalDate from, LocalDate to) {
+        this.method = method;
+        this.args = args;
+        this.from = from;
+        this.to = to;
+        StringBuilder sb = new StringBuilder(method).append('(');
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(args[i]);
+        }
+        this.text = sb.append(')').toString();
+    }
+
+    public boolean isUnbounded() {
+        return from == null;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public boolean covers(LocalDate date) {
+        return from == null || (!date.isBefore(from) && !date.isAfter(to));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FlowCacheKey that = (FlowCacheKey) o;
+        return method.equals(that.method) && Arrays.equals(args, that.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, Arrays.hashCode(args));
+    }
+
+    /**
+     * 形如 getWeeklyTotals(西直门,2019-05-07)，同时用作 Redis 键
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,39 @@
+package com.subBike.server.cache;
+
+import com.subBike.server.util.FlowDates;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * 生成 FlowCacheKey：日期参数统一转成 LocalDate，并按 @DateKeyed 计算覆盖的日期范围
+ */
+@Component("flowCacheKeyGenerator")
+public class FlowCacheKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        Object[] args = new Object[params.length];
+        LocalDate date = null;
+        for (int i = 0; i < params.length; i++) {
+            Object p = params[i];
+            if (p instanceof Date) {
+                p = FlowDates.toLocalDate((Date) p);
+            }
+            if (p instanceof LocalDate && date == null) {
+                date = (LocalDate) p;
+            }
+            args[i] = p;
+        }
+        if (date == null) {
+            return new FlowCacheKey(method.getName(), args, null, null);
+        }
+        DateKeyed dateKeyed = AnnotatedElementUtils.findMergedAnnotation(method, DateKeyed.class);
+        int span = dateKeyed == null ? 1 : Math.max(1, dateKeyed.span());
+        return new FlowCacheKey(method.getName(), args, date.minusDays(span - 1L), date);
+    }
+}
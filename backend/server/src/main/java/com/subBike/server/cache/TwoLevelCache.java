@@ -0,0 +1,266 @@
+package com.subBike.server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * 两级缓存：一级为 JVM 内按容量淘汰的 Caffeine，二级为共享的 Redis（可选）
+ *
+ * Redis 中除了值本身，还为每个日期维护一个键集合（…:date:2019-05-01），
+ * 覆盖全部日期的键记在 …:date:all 中，按日期失效时只删除相关的键。
+ * Redis 不可用时只记录日志，退化为仅一级缓存。
+ *
+ * 一级缓存是每个实例各自的：失效时经 Redis pub/sub（EVICT_CHANNEL）通知其他实例，
+ * 由 TwoLevelCacheManager 收到后删除它们本地的副本。
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    public static final String EVICT_CHANNEL = "subbike:cache:evict";
+
+    private static final String ALL_DATES = "all";
+    private static final int DELETE_BATCH = 1000;
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final RedisTemplate<String, Object> redis;
+    private final Duration redisTtl;
+    private final String prefix;
+    private final String node;
+
+    /**
+     * @param node 本实例的标识，随失效通知发出，收到自己发的通知时忽略
+     */
+    public TwoLevelCache(String name, Cache<Object, Object> local,
+                         RedisTemplate<String, Object> redis, Duration redisTtl, String node) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.redis = redis;
+        this.redisTtl = redisTtl;
+        this.prefix = "subbike:" + name + ":";
+        this.node = node;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    public Cache<Object, Object> getLocalCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null || redis == null) {
+            return value;
+        }
+        try {
+            value = redis.opsForValue().get(prefix + key);
+        } catch (RuntimeException e) {
+            logger.warn("Redis read failed for {}{}: {}", prefix, key, e.getMessage());
+            return null;
+        }
+        if (value != null) {
+            local.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) fromStoreValue(value);
+        }
+        try {
+            T loaded = valueLoader.call();
+            put(key, loaded);
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        local.put(key, value);
+        if (redis == null) {
+            return;
+        }
+        String redisKey = prefix + key;
+        try {
+            redis.opsForValue().set(redisKey, value, redisTtl);
+            for (String index : dateIndexes(key)) {
+                redis.opsForSet().add(index, redisKey);
+                redis.expire(index, redisTtl);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Redis write failed for {}: {}", redisKey, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.invalidate(key);
+        if (redis != null) {
+            try {
+                redis.delete(prefix + key);
+                publish(EvictOp.KEY, key.toString());
+            } catch (RuntimeException e) {
+                logger.warn("Redis evict failed for {}{}: {}", prefix, key, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        if (redis != null) {
+            // SCAN 分批遍历，KEYS 会阻塞 Redis
+            List<String> keys = new ArrayList<>();
+            try (Cursor<String> cursor = redis.scan(ScanOptions.scanOptions().match(prefix + "*").count(DELETE_BATCH).build())) {
+                while (cursor.hasNext()) {
+                    keys.add(cursor.next());
+                    if (keys.size() == DELETE_BATCH) {
+                        redis.delete(keys);
+                        keys.clear();
+                    }
+                }
+                if (!keys.isEmpty()) {
+                    redis.delete(keys);
+                }
+                publish(EvictOp.CLEAR, "");
+            } catch (RuntimeException e) {
+                logger.warn("Redis clear failed for {}: {}", prefix, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 失效所有覆盖这些日期的条目（以及不限日期的条目）
+     */
+    public void evictDates(Collection<LocalDate> dates) {
+        evictLocalDates(dates);
+        if (redis == null) {
+            return;
+        }
+        try {
+            List<String> indexes = new ArrayList<>();
+            indexes.add(prefix + "date:" + ALL_DATES);
+            for (LocalDate date : dates) {
+                indexes.add(prefix + "date:" + date);
+            }
+            Set<String> keys = new HashSet<>();
+            for (String index : indexes) {
+                Set<Object> members = redis.opsForSet().members(index);
+                if (members != null) {
+                    members.forEach(m -> keys.add(m.toString()));
+                }
+            }
+            keys.addAll(indexes);
+            redis.delete(keys);
+            StringJoiner joined = new StringJoiner(",");
+            dates.forEach(date -> joined.add(date.toString()));
+            publish(EvictOp.DATES, joined.toString());
+        } catch (RuntimeException e) {
+            logger.warn("Redis date eviction failed for {} {}: {}", prefix, dates, e.getMessage());
+        }
+    }
+
+    /**
+     * 其他实例发来的失效通知，只处理一级缓存（Redis 已由发出方删除）
+     * 消息来自 Redis 频道，内容不可信：未知操作忽略，日期无法解析时清空整个一级缓存
+     */
+    void onRemoteEvict(String origin, String op, String arg) {
+        if (node.equals(origin)) {
+            return;
+        }
+        EvictOp evictOp = EvictOp.of(op);
+        if (evictOp == null) {
+            logger.warn("Ignoring cache eviction message with unknown operation {} for {}", op, name);
+            return;
+        }
+        switch (evictOp) {
+            case KEY:
+                local.asMap().keySet().removeIf(key -> key.toString().equals(arg));
+                break;
+            case DATES:
+                List<LocalDate> dates = new ArrayList<>();
+                try {
+                    for (String date : arg.split(",")) {
+                        if (!date.isEmpty()) {
+                            dates.add(LocalDate.parse(date));
+                        }
+                    }
+                } catch (DateTimeParseException e) {
+                    logger.warn("Malformed dates in cache eviction message for {}: {}, clearing local cache", name, arg);
+                    local.invalidateAll();
+                    return;
+                }
+                evictLocalDates(dates);
+                break;
+            default:
+                local.invalidateAll();
+        }
+    }
+
+    private void evictLocalDates(Collection<LocalDate> dates) {
+        local.asMap().keySet().removeIf(key -> !(key instanceof FlowCacheKey)
+                || dates.stream().anyMatch(((FlowCacheKey) key)::covers));
+    }
+
+    /**
+     * 消息格式：实例标识|缓存名|操作|参数；先删 Redis 再通知，其他实例不会从 Redis 读回旧值
+     */
+    private void publish(EvictOp op, String arg) {
+        redis.convertAndSend(EVICT_CHANNEL, node + "|" + name + "|" + op + "|" + arg);
+    }
+
+    private List<String> dateIndexes(Object key) {
+        if (!(key instanceof FlowCacheKey) || ((FlowCacheKey) key).isUnbounded()) {
+            return Collections.singletonList(prefix + "date:" + ALL_DATES);
+        }
+        FlowCacheKey flowKey = (FlowCacheKey) key;
+        List<String> indexes = new ArrayList<>();
+        for (LocalDate d = flowKey.getFrom(); !d.isAfter(flowKey.getTo()); d = d.plusDays(1)) {
+            indexes.add(prefix + "date:" + d);
+        }
+        return indexes;
+    }
+
+    enum EvictOp {
+        KEY, DATES, CLEAR;
+
+        static EvictOp of(String name) {
+            for (EvictOp op : values()) {
+                if (op.name().equals(name)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.subBike.server.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按名称创建 TwoLevelCache，每个缓存各自有容量上限
+ *
+ * 同时订阅 TwoLevelCache.EVICT_CHANNEL，把其他实例的失效通知转给对应的缓存（见 CacheConfig）。
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private final long maximumSize;
+    private final Duration localExpireAfterWrite;
+    private final RedisTemplate<String, Object> redis;
+    private final Duration redisTtl;
+    private final String node = UUID.randomUUID().toString();
+
+    /**
+     * @param redis 为 null 时只使用一级缓存
+     */
+    public TwoLevelCacheManager(long maximumSize, Duration localExpireAfterWrite,
+                                RedisTemplate<String, Object> redis, Duration redisTtl) {
+        this.maximumSize = maximumSize;
+        this.localExpireAfterWrite = localExpireAfterWrite;
+        this.redis = redis;
+        this.redisTtl = redisTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> new TwoLevelCache(n,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(localExpireAfterWrite)
+                        .recordStats()
+                        .build(),
+                redis, redisTtl, node));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * 已创建的缓存
+     */
+    public Collection<TwoLevelCache> getCaches() {
+        return Collections.unmodifiableCollection(caches.values());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body;
+        try {
+            body = redis.getValueSerializer().deserialize(message.getBody());
+        } catch (SerializationException e) {
+            logger.warn("Ignoring undecodable cache eviction message: {}", e.getMessage());
+            return;
+        }
+        String[] parts = String.valueOf(body).split("\\|", 4);
+        if (parts.length < 4) {
+            logger.warn("Ignoring malformed cache eviction message: {}", body);
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.onRemoteEvict(parts[0], parts[2], parts[3]);
+        }
+    }
+}
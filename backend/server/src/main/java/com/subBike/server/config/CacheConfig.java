@@ -0,0 +1,92 @@
+package com.subBike.server.config;
+
+import com.subBike.server.cache.FlowCacheInvalidator;
+import com.subBike.server.cache.TwoLevelCache;
+import com.subBike.server.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+
+/**
+ * 查询缓存配置：一级 JVM 内缓存 + 可选的 Redis 二级缓存
+ * 本地开发可用 compose.yaml 中的 redis 作为二级缓存。
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Value("${subway.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${subway.cache.local.maximum-size:2000}")
+    private long maximumSize;
+
+    @Value("${subway.cache.local.expire-after-write:10m}")
+    private Duration localExpireAfterWrite;
+
+    @Value("${subway.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${subway.cache.redis.ttl:7d}")
+    private Duration redisTtl;
+
+    @Bean
+    public CacheManager cacheManager(ObjectProvider<RedisConnectionFactory> connectionFactory) {
+        if (!enabled) {
+            return new NoOpCacheManager();
+        }
+        RedisTemplate<String, Object> redis = null;
+        RedisConnectionFactory factory = connectionFactory.getIfAvailable();
+        if (redisEnabled && factory != null) {
+            redis = new RedisTemplate<>();
+            redis.setConnectionFactory(factory);
+            redis.setKeySerializer(new StringRedisSerializer());
+            redis.setValueSerializer(new JdkSerializationRedisSerializer());
+            redis.afterPropertiesSet();
+        }
+        TwoLevelCacheManager manager = new TwoLevelCacheManager(maximumSize, localExpireAfterWrite, redis, redisTtl);
+        // 预先创建，启动时即可注册缓存指标（缓存默认在首次使用时才创建）
+        for (String name : FlowCacheInvalidator.NAMES) {
+            manager.getCache(name);
+        }
+        return manager;
+    }
+
+    /**
+     * 订阅其他实例的失效通知，删除本实例一级缓存中的对应条目
+     */
+    @Bean
+    @ConditionalOnProperty(name = "subway.cache.redis.enabled", havingValue = "true")
+    public RedisMessageListenerContainer cacheEvictionListener(CacheManager cacheManager,
+                                                               RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            container.addMessageListener((TwoLevelCacheManager) cacheManager, new ChannelTopic(TwoLevelCache.EVICT_CHANNEL));
+        }
+        return container;
+    }
+
+    /**
+     * 一级缓存命中率等指标：cache.gets{result=hit|miss}、cache.puts、cache.evictions
+     */
+    @Bean
+    public CacheMeterBinderProvider<TwoLevelCache> twoLevelCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getLocalCache(), cache.getName(), tags);
+    }
+}
@@ -0,0 +1,85 @@
+package com.subBike.server.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 主库 + 只读副本两个连接池，按事务是否只读路由
+ *
+ * 启用 subway.datasource.replica.enabled 后：
+ * - @Transactional(readOnly = true) 的服务调用（仪表盘聚合查询）走 replica 池
+ * - 其余（登录、注册、管理员修改、导入）走 primary 池
+ * 副本地址默认与主库相同，此时只是把两类请求隔离到两个池，仪表盘突发流量不会占满登录用的连接。
+ *
+ * 路由数据源外面包一层 LazyConnectionDataSourceProxy：事务开始时还不知道是否只读，
+ * 等到第一次真正执行 SQL 时再按当时的事务属性取连接。
+ */
+@Configuration
+@ConditionalOnProperty(name = "subway.datasource.replica.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            @Qualifier("primaryDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("subway.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("subway.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Qualifier("replicaDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(REPLICA);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource();
+        routing.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    static class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+        }
+    }
+}
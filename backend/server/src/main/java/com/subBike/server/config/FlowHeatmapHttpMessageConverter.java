@@ -0,0 +1,98 @@
+package com.subBike.server.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.subBike.server.entity.dto.FlowHeatmap;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 把 FlowHeatmap 直接写到响应流：Accept 为 application/octet-stream 时写二进制，否则写列格式 JSON
+ * 格式说明见 FlowHeatmap。
+ */
+public class FlowHeatmapHttpMessageConverter extends AbstractHttpMessageConverter<FlowHeatmap> {
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public FlowHeatmapHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, MediaType.APPLICATION_OCTET_STREAM);
+        // 响应流由容器关闭
+        jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return FlowHeatmap.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected FlowHeatmap readInternal(Class<? extends FlowHeatmap> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("FlowHeatmap 只用于响应", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(FlowHeatmap heatmap, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        if (MediaType.APPLICATION_OCTET_STREAM.isCompatibleWith(contentType)) {
+            writeBinary(heatmap, outputMessage);
+        } else {
+            writeJson(heatmap, outputMessage);
+        }
+    }
+
+    private void writeBinary(FlowHeatmap heatmap, HttpOutputMessage outputMessage) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody(), 8192));
+        List<String> stations = heatmap.getStations();
+        int[][] values = heatmap.getValues();
+        out.writeInt(stations.size());
+        out.writeInt(FlowHeatmap.HOURS);
+        for (String station : stations) {
+            out.writeUTF(station);
+        }
+        for (int[] row : values) {
+            for (int h = 0; h < FlowHeatmap.HOURS; h++) {
+                out.writeInt(row[h]);
+            }
+        }
+        out.flush();
+    }
+
+    private void writeJson(FlowHeatmap heatmap, HttpOutputMessage outputMessage) throws IOException {
+        List<String> stations = heatmap.getStations();
+        int[][] values = heatmap.getValues();
+        try (JsonGenerator gen = jsonFactory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeStringField("from", heatmap.getFrom().toString());
+            gen.writeStringField("to", heatmap.getTo().toString());
+            gen.writeStringField("metric", heatmap.getMetric().name().toLowerCase(Locale.ROOT));
+            gen.writeNumberField("hours", FlowHeatmap.HOURS);
+            gen.writeArrayFieldStart("stations");
+            for (String station : stations) {
+                gen.writeString(station);
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("values");
+            for (int[] row : values) {
+                for (int h = 0; h < FlowHeatmap.HOURS; h++) {
+                    gen.writeNumber(row[h]);
+                }
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.subBike.server.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 虚拟线程模式下限制 JDBC 并发
+ *
+ * 每个 Hikari 连接池（默认单池，或 DataSourceConfig 的 primary / replica）都包一层
+ * ConcurrencyLimitedDataSource，许可数 = 该池的 maximum-pool-size。
+ * 默认随 spring.threads.virtual.enabled 开启；平台线程模式下并发已被 Tomcat 线程数限制，无需再加。
+ */
+@Configuration
+@ConditionalOnProperty(name = "subway.jdbc.limit.enabled", havingValue = "true")
+public class JdbcConcurrencyConfig {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcConcurrencyConfig.class);
+
+    @Bean
+    public static LimiterPostProcessor jdbcConcurrencyLimiter(Environment environment) {
+        Duration acquireTimeout = Binder.get(environment)
+                .bind("subway.jdbc.limit.acquire-timeout", Duration.class)
+                .orElse(Duration.ofSeconds(30));
+        return new LimiterPostProcessor(acquireTimeout);
+    }
+
+    /**
+     * 每个限流层的剩余许可与排队数：subway.jdbc.permits.available / subway.jdbc.permits.waiting
+     */
+    @Bean
+    public MeterBinder jdbcPermitMetrics(List<DataSource> dataSources) {
+        return registry -> {
+            Set<ConcurrencyLimitedDataSource> bound = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (DataSource dataSource : dataSources) {
+                ConcurrencyLimitedDataSource limiter = DataSourceUnwrapper.unwrap(dataSource, ConcurrencyLimitedDataSource.class);
+                HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+                if (limiter == null || pool == null || !bound.add(limiter)) {
+                    continue;
+                }
+                Gauge.builder("subway.jdbc.permits.available", limiter, ConcurrencyLimitedDataSource::getAvailablePermits)
+                        .tag("pool", pool.getPoolName())
+                        .register(registry);
+                Gauge.builder("subway.jdbc.permits.waiting", limiter, ConcurrencyLimitedDataSource::getQueueLength)
+                        .tag("pool", pool.getPoolName())
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * 实现 Ordered：要赶在 Batch 的 jobRegistryBeanPostProcessor（未排序，会提前创建 dataSource）之前注册，
+     * 否则 dataSource 创建时还没有这个后处理器，池不会被包上限流层；
+     * 同时先于 MetricsConfig 的慢 SQL 包装执行，保证限流层直接包在池外面
+     */
+    static class LimiterPostProcessor implements BeanPostProcessor, Ordered {
+        private final Duration acquireTimeout;
+
+        LimiterPostProcessor(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource pool) {
+                // 此时 spring.datasource.hikari.* 已绑定，池大小就是最终值
+                int permits = pool.getMaximumPoolSize();
+                logger.info("Limiting JDBC concurrency on {} to {} connections", beanName, permits);
+                return new ConcurrencyLimitedDataSource(pool, permits, acquireTimeout);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.subBike.server.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 慢 SQL 日志：应用使用的 dataSource 外包一层 SlowQueryDataSource
+ *
+ * 接口耗时（http.server.requests）、仓库方法耗时（spring.data.repository.invocations）、
+ * 连接池（hikaricp.*）由 Actuator 自动采集，缓存命中率见 CacheConfig，均通过 /actuator/metrics 查看。
+ */
+@Configuration
+@ConditionalOnProperty(name = "subway.metrics.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfig {
+
+    @Bean
+    public static SlowQueryPostProcessor slowQueryLogger(Environment environment) {
+        Duration threshold = Binder.get(environment)
+                .bind("subway.metrics.slow-query.threshold", Duration.class)
+                .orElse(Duration.ofMillis(200));
+        return new SlowQueryPostProcessor(threshold);
+    }
+
+    /**
+     * 实现 Ordered：要赶在 Batch 的 jobRegistryBeanPostProcessor（未排序，会提前创建 dataSource）之前注册；
+     * 顺序排在 JdbcConcurrencyConfig 的限流包装之后
+     */
+    static class SlowQueryPostProcessor implements BeanPostProcessor, Ordered {
+        private final Duration threshold;
+
+        SlowQueryPostProcessor(Duration threshold) {
+            this.threshold = threshold;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            // 只包最终的 dataSource（单池时是池本身，读写分离时是路由数据源），同一条 SQL 只计时一次
+            if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                return new SlowQueryDataSource(dataSource, threshold);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.subBike.server.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 记录执行时间超过阈值的 SQL 及其绑定参数
+ *
+ * 代理 Connection 创建的 Statement / PreparedStatement：set* 时记下参数，execute* 时计时，
+ * 超过阈值按 WARN 输出 SQL 和参数（过长的参数值截断）。JPA、JdbcTemplate、批量导入都经过这里。
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryDataSource.class);
+
+    private static final int MAX_VALUE_LENGTH = 100;
+
+    private final long thresholdNanos;
+
+    public SlowQueryDataSource(DataSource target, Duration threshold) {
+        super(target);
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection proxy(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        // prepareStatement / prepareCall 的第一个参数是 SQL；createStatement 执行时再给出
+                        String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                        return statement(statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement statement(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        Map<Integer, Object> parameters = new TreeMap<>();
+        int[] batches = new int[1];
+        return (Statement) Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parameters.put((Integer) args[0], args[1]);
+                    } else if ("clearParameters".equals(name)) {
+                        parameters.clear();
+                    } else if ("addBatch".equals(name)) {
+                        batches[0]++;
+                    } else if (name.startsWith("execute")) {
+                        long start = System.nanoTime();
+                        try {
+                            return invoke(statement, method, args);
+                        } finally {
+                            long elapsed = System.nanoTime() - start;
+                            if (elapsed >= thresholdNanos) {
+                                String sql = preparedSql != null ? preparedSql
+                                        : args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "?";
+                                log(elapsed, sql, parameters, batches[0]);
+                            }
+                            if ("executeBatch".equals(name)) {
+                                batches[0] = 0;
+                            }
+                        }
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static void log(long elapsedNanos, String sql, Map<Integer, Object> parameters, int batches) {
+        StringBuilder params = new StringBuilder();
+        parameters.forEach((index, value) -> {
+            if (params.length() > 0) {
+                params.append(", ");
+            }
+            String text = String.valueOf(value);
+            params.append(index).append('=')
+                    .append(text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) + "…" : text);
+        });
+        if (batches > 0) {
+            logger.warn("Slow query {} ms (batch of {}, last parameters [{}]): {}",
+                    elapsedNanos / 1_000_000, batches, params, sql);
+        } else {
+            logger.warn("Slow query {} ms [{}]: {}", elapsedNanos / 1_000_000, params, sql);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
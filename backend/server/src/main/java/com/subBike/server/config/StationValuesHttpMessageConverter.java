@@ -0,0 +1,75 @@
+package com.subBike.server.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.entity.dto.FlowMetric;
+import com.subBike.server.entity.dto.StationValues;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 把 StationValues 直接写到响应流：逐行读取 DTO 字段写出，不经过 Map 或 Jackson 的 Bean 序列化
+ */
+public class StationValuesHttpMessageConverter extends AbstractHttpMessageConverter<StationValues> {
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public StationValuesHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        // 响应流由容器关闭
+        jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return StationValues.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected StationValues readInternal(Class<? extends StationValues> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("StationValues 只用于响应", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(StationValues values, HttpOutputMessage outputMessage) throws IOException {
+        List<AmountDto> rows = values.getRows();
+        FlowMetric metric = values.getMetric();
+        try (JsonGenerator gen = jsonFactory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            if (values.isColumnar()) {
+                gen.writeStartObject();
+                gen.writeArrayFieldStart("stations");
+                for (int i = 0; i < rows.size(); i++) {
+                    gen.writeString(rows.get(i).getStation());
+                }
+                gen.writeEndArray();
+                gen.writeArrayFieldStart("values");
+                for (int i = 0; i < rows.size(); i++) {
+                    gen.writeNumber(metric.value(rows.get(i)));
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            } else {
+                gen.writeStartArray();
+                for (int i = 0; i < rows.size(); i++) {
+                    AmountDto dto = rows.get(i);
+                    gen.writeStartObject();
+                    gen.writeNumberField(dto.getStation(), metric.value(dto));
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+        }
+    }
+}
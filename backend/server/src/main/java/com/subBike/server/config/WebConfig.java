@@ -0,0 +1,18 @@
+package com.subBike.server.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // 放在 Jackson 之前，StationValues / FlowHeatmap 走流式输出
+        converters.add(0, new StationValuesHttpMessageConverter());
+        converters.add(0, new FlowHeatmapHttpMessageConverter());
+    }
+}
@@ -6,6 +6,7 @@ import com.subBike.server.entity.dto.UpdateRoleRequest;
 import com.subBike.server.entity.dto.UserDto;
 import com.subBike.server.payload.response.MessageResponse;
 import com.subBike.server.mapper.UserRepository;
+import com.subBike.server.security.jwt.JwtUserCache;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +26,9 @@ public class AdminController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JwtUserCache userCache;
+
     @GetMapping("/users")
     public ResponseEntity<List<UserDto>> getAllUsers() {
         List<UserDto> users = userRepository.findAll().stream()
@@ -56,6 +60,7 @@ public class AdminController {
             ERole newRole = ERole.valueOf(updateRoleRequest.getRole());
             userToUpdate.setRole(newRole);
             userRepository.save(userToUpdate);
+            userCache.invalidateUser(userToUpdate.getUsername());
             return ResponseEntity.ok(new MessageResponse("User role updated successfully!"));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: Invalid role specified!"));
@@ -78,6 +83,7 @@ public class AdminController {
         }
 
         userRepository.deleteById(id);
+        userCache.invalidateUser(userToDelete.getUsername());
         return ResponseEntity.ok(new MessageResponse("User deleted successfully!"));
     }
 } 
\ No newline at end of file
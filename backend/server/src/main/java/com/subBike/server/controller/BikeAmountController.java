@@ -6,6 +6,7 @@ import com.subBike.server.entity.SubAmount;
 import com.subBike.server.entity.dto.*;
 import com.subBike.server.service.IBikeAmountService;
 import com.subBike.server.service.ISubAmountService;
+import com.subBike.server.service.store.BikeGeoIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,6 +20,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.sql.Struct;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -27,8 +29,13 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/bike")//用/user/**访问
 @Tag(name = "地铁流量", description = "共享单车的API接口")
 public class BikeAmountController {
+    // /near 半径上限（米）
+    private static final double MAX_RADIUS_METERS = 50_000;
+
     @Autowired
     IBikeAmountService bikeAmountService;
+    @Autowired
+    BikeGeoIndex bikeGeoIndex;
 
     @GetMapping("/date")
     @Operation(
@@ -121,5 +128,98 @@ public class BikeAmountController {
         return  list;
     }
 
+    /**
+     * 日期区间内单车数合计最多的 k 个站点
+     * @param from 开始日期，格式：yyyy-MM-dd
+     * @param to 结束日期（含），格式：yyyy-MM-dd
+     * @param k 返回的站点数，默认 10
+     */
+    @GetMapping("/top")
+    @Operation(
+            summary = "单车量排行",
+            description = "任意日期区间内单车数合计的前 k 个站点，降序",
+            parameters = {
+                    @Parameter(name = "from", description = "开始日期（格式：yyyy-MM-dd）",
+                            example = "2019-05-01", required = true),
+                    @Parameter(name = "to", description = "结束日期，包含当天（格式：yyyy-MM-dd）",
+                            example = "2019-05-31", required = true),
+                    @Parameter(name = "k", description = "返回的站点数", example = "10")
+            }
+    )
+    public ResponseEntity<?> getTop(
+            @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(value = "k", defaultValue = "10") int k
+    )
+    {
+        try {
+            return ResponseEntity.ok(bikeAmountService.findTop(from, to, k));
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonList(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/near")
+    @Operation(
+            summary = "查询站点附近的单车量",
+            description = "返回距该站点 radius 米内的其他站点，按距离由近到远",
+            parameters = {
+                    @Parameter(name = "station", description = "站点名称", example = "西直门", required = true),
+                    @Parameter(name = "radius", description = "半径（米），不超过 50000", example = "1000"),
+                    @Parameter(name = "date", description = "查询日期（格式：yyyy-MM-dd），缺省为最新日期",
+                            example = "2019-05-01")
+            }
+    )
+    public ResponseEntity<?> getNear(
+            @RequestParam String station,
+            @RequestParam(defaultValue = "1000") double radius,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date
+    )
+    {
+        // NaN 不满足任何比较，一并拒绝
+        if (!(radius > 0 && radius <= MAX_RADIUS_METERS)) {
+            return ResponseEntity.badRequest().body(Collections.singletonList(
+                    "radius 必须在 (0, " + (int) MAX_RADIUS_METERS + "] 米之间"));
+        }
+        LocalDate day = date != null ? date : bikeGeoIndex.latestDate();
+        List<BikeLocationDto> list = day == null ? null : bikeGeoIndex.near(day, station, radius);
+        if (list == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(list);
+    }
+
+    @GetMapping("/bbox")
+    @Operation(
+            summary = "查询矩形范围内的单车量",
+            description = "",
+            parameters = {
+                    @Parameter(name = "minLat", description = "最小纬度", example = "39.90", required = true),
+                    @Parameter(name = "minLng", description = "最小经度", example = "116.38", required = true),
+                    @Parameter(name = "maxLat", description = "最大纬度", example = "39.92", required = true),
+                    @Parameter(name = "maxLng", description = "最大经度", example = "116.42", required = true),
+                    @Parameter(name = "date", description = "查询日期（格式：yyyy-MM-dd），缺省为最新日期",
+                            example = "2019-05-01")
+            }
+    )
+    public ResponseEntity<List<BikeLocationDto>> getWithin(
+            @RequestParam double minLat, @RequestParam double minLng,
+            @RequestParam double maxLat, @RequestParam double maxLng,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date
+    )
+    {
+        // 同时拒绝 NaN、无穷大和超出经纬度范围的值
+        if (!(minLat >= -90 && maxLat <= 90 && minLng >= -180 && maxLng <= 180)
+                || minLat > maxLat || minLng > maxLng) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate day = date != null ? date : bikeGeoIndex.latestDate();
+        if (day == null) {
+            return ResponseEntity.ok(new ArrayList<>());
+        }
+        return ResponseEntity.ok(bikeGeoIndex.within(day, minLat, minLng, maxLat, maxLng));
+    }
+
 
 }
@@ -1,5 +1,6 @@
 package com.subBike.server.controller;
 
+import com.subBike.server.entity.dto.StationRebalanceDto;
 import com.subBike.server.service.BikeReqService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -38,6 +39,10 @@ public class BikeReqController {
 //            ,@RequestParam(defaultValue = "false") boolean countOnly
            ) {
 
+        // 缺参数时 date/station 为 null，直接返回 400
+        if (date == null || station == null || station.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "date 和 station 不能为空"));
+        }
         try {
 //            if (countOnly) {
                 // 只返回总数
@@ -51,12 +56,27 @@ public class BikeReqController {
 //                return ResponseEntity.ok(list);
 //            }
 
-        } catch (Exception e) {
-            Map<String, String> error = Map.of("error", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // Map.of 不接受 null 值
+            Map<String, String> error = Map.of("error", Objects.toString(e.getMessage(), "参数错误"));
             return ResponseEntity.badRequest().body(error);
         }
     }
 
+    @GetMapping("/snapshot")
+    @Operation(
+            summary = "按日期查询所有站点的单车缺口",
+            description = "一次返回全部站点的当天单车数、此前平均数和缺口，代替逐站点调用 /amount",
+            parameters = {
+                    @Parameter(name = "date", description = "查询日期（格式：yyyy-MM-dd）",
+                            example = "2019-05-10", required = true)
+            }
+    )
+    public ResponseEntity<List<StationRebalanceDto>> getSnapshot(
+            @RequestParam("date") @DateTimeFormat(pattern = "yyyy-MM-dd") Date date) {
+        return ResponseEntity.ok(bikeReqService.getSnapshot(date));
+    }
+
 
 
 }
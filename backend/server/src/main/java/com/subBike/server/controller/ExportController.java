@@ -0,0 +1,86 @@
+package com.subBike.server.controller;
+
+import com.subBike.server.export.ExportDataset;
+import com.subBike.server.export.ExportFormat;
+import com.subBike.server.export.FlowExportService;
+import com.subBike.server.payload.response.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RequestMapping("/api/export")
+@Tag(name = "数据导出", description = "按日期区间批量导出客流、单车与预测数据")
+public class ExportController {
+    @Autowired
+    FlowExportService exportService;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    /**
+     * 流式导出某张表在日期区间内的全部行，响应分块传输，服务端内存占用与区间长度无关
+     * @param dataset subway（subAmount）、bike（bikeAmount）、predict
+     * @param from 开始日期，格式：yyyy-MM-dd
+     * @param to 结束日期（含），格式：yyyy-MM-dd
+     * @param format csv（gzip 压缩的 CSV，默认）或 bin（分块列式二进制）
+     */
+    @GetMapping("/{dataset}")
+    @Operation(
+            summary = "批量导出",
+            description = "替代循环调用 /totals、/weekly：数据库游标逐行读取，边读边编码输出",
+            parameters = {
+                    @Parameter(name = "dataset", description = "subway、bike、predict", example = "subway", required = true),
+                    @Parameter(name = "from", description = "开始日期（格式：yyyy-MM-dd）",
+                            example = "2019-05-01", required = true),
+                    @Parameter(name = "to", description = "结束日期，包含当天（格式：yyyy-MM-dd）",
+                            example = "2019-05-31", required = true),
+                    @Parameter(name = "format", description = "csv 或 bin", example = "csv")
+            }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "导出成功"),
+            @ApiResponse(responseCode = "400", description = "无效的数据集、格式或日期范围")
+    })
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable("dataset") String dataset,
+                                                        @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                                        @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                                        @RequestParam(value = "format", defaultValue = "csv") String format) {
+        ExportDataset target;
+        ExportFormat encoding;
+        try {
+            target = ExportDataset.of(dataset);
+            encoding = ExportFormat.of(format);
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("日期范围无效: " + from + " ~ " + to);
+            }
+        }
+        catch (IllegalArgumentException e) {
+            // 返回类型须声明为 StreamingResponseBody 才会走流式处理，错误信息也按同一类型写出
+            MessageResponse message = new MessageResponse("Error: " + e.getMessage());
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, message));
+        }
+        String fileName = target.name().toLowerCase() + "_" + from + "_" + to + encoding.getExtension();
+        // 不设 Content-Length，由容器分块传输
+        StreamingResponseBody body = out -> exportService.export(target, from, to, encoding, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(encoding.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,65 @@
+package com.subBike.server.controller;
+
+import com.subBike.server.batch.ImportJobService;
+import com.subBike.server.payload.response.MessageResponse;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/admin/import")
+@PreAuthorize("hasRole('ADMIN')")
+public class ImportJobController {
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @PostMapping("/subway")
+    public ResponseEntity<?> importSubway(@RequestParam(required = false) String files,
+                                          @RequestParam(defaultValue = "false") boolean force) {
+        try {
+            return ResponseEntity.ok(summary(importJobService.importSubway(files, force)));
+        } catch (JobExecutionException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/bike")
+    public ResponseEntity<?> importBike(@RequestParam(required = false) String file,
+                                        @RequestParam(defaultValue = "false") boolean force) {
+        try {
+            return ResponseEntity.ok(summary(importJobService.importBike(file, force)));
+        } catch (JobExecutionException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    private static Map<String, Object> summary(JobExecution execution) {
+        long read = 0L;
+        long written = 0L;
+        long skipped = 0L;
+        for (StepExecution step : execution.getStepExecutions()) {
+            // 分区主步骤的计数是各分区之和，只统计分区步骤
+            if (step.getStepName().contains(":")) {
+                read += step.getReadCount();
+                written += step.getWriteCount();
+                skipped += step.getSkipCount();
+            }
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("jobExecutionId", execution.getId());
+        body.put("status", execution.getStatus().name());
+        body.put("read", read);
+        body.put("written", written);
+        body.put("skipped", skipped);
+        return body;
+    }
+}
@@ -1,66 +1,82 @@
-//package com.subBike.server.controller;
-//
-//
-//// 3. REST接口控制器
-//import ai.onnxruntime.OrtException;
-//import com.subBike.server.service.MetroDataService;
-//import com.subBike.server.service.MetroPredictService;
-//import org.springframework.web.bind.annotation.*;
-//import org.springframework.beans.factory.annotation.Autowired;
-//import org.springframework.scheduling.annotation.Scheduled;
-//
-//import java.util.HashMap;
-//import java.util.Map;
-//
-//@RestController
-//@RequestMapping("/api/metro")
-//public class MetroPredictionController {
-//
-//    private MetroPredictService predictionService;
-//    private MetroDataService dataService;
-//
-//    public MetroPredictionController() throws OrtException {
-//        this.predictionService = new MetroPredictService();
-//        this.dataService = new MetroDataService();
-//    }
-//
-//    /**
-//     * 手动触发预测接口
-//     */
-//    @GetMapping("/predict")
-//    public Map<String, Object> predict() {
-//        try {
-//            // 获取历史数据
-//            float[][][] historicalData = dataService.getHistoricalData();
-//
-//            // 执行预测
-//            float[][] predictions = predictionService.predict(historicalData);
-//
-//            // 保存结果
-//            dataService.savePredictions(predictions);
-//
-//            // 返回结果
-//            Map<String, Object> response = new HashMap<>();
-//            response.put("success", true);
-//            response.put("message", "预测完成");
-//            response.put("predictions", predictions);
-//            return response;
-//
-//        } catch (Exception e) {
-//            Map<String, Object> response = new HashMap<>();
-//            response.put("success", false);
-//            response.put("error", e.getMessage());
-//            return response;
-//        }
-//    }
-//
-//    /**
-//     * 每天自动执行预测 - 凌晨1点执行
-//     */
-//    @Scheduled(cron = "0 0 1 * * ?")
-//    public void scheduledPredict() {
-//        System.out.println("开始执行定时预测任务...");
-//        predict();
-//        System.out.println("定时预测任务完成");
-//    }
-//}
\ No newline at end of file
+package com.subBike.server.controller;
+
+import com.subBike.server.service.MetroPredictService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metro")
+@Tag(name = "客流预测", description = "ONNX 模型客流预测接口")
+public class MetroPredictionController {
+    private static final Logger logger = LoggerFactory.getLogger(MetroPredictionController.class);
+
+    @Autowired
+    private MetroPredictService predictionService;
+
+    @Value("${subway.predict.schedule.enabled:false}")
+    private boolean scheduleEnabled;
+
+    /**
+     * 手动触发预测接口
+     */
+    @PostMapping("/predict")
+    @Operation(
+            summary = "执行客流预测",
+            description = "用前 6 天的历史数据预测指定日期各站点各时段的进出站人数，结果写入 predict 表",
+            parameters = {
+                    @Parameter(name = "date", description = "预测日期（格式：yyyy-MM-dd），默认明天",
+                            example = "2023-01-08")
+            }
+    )
+    public ResponseEntity<Map<String, Object>> predict(
+            @RequestParam(value = "date", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            MetroPredictService.Result result =
+                    predictionService.predictDay(date != null ? date : LocalDate.now().plusDays(1));
+            response.put("success", true);
+            response.put("message", "预测完成");
+            response.put("date", result.getDate().toString());
+            response.put("rows", result.getRows());
+            response.put("inferenceMillis", result.getInferenceMillis());
+            response.put("totalMillis", result.getTotalMillis());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * 每天自动执行预测 - 凌晨1点执行
+     */
+    @Scheduled(cron = "${subway.predict.schedule.cron:0 0 1 * * ?}")
+    public void scheduledPredict() {
+        if (!scheduleEnabled) {
+            return;
+        }
+        LocalDate date = LocalDate.now().plusDays(1);
+        logger.info("Scheduled prediction for {} started", date);
+        try {
+            MetroPredictService.Result result = predictionService.predictDay(date);
+            logger.info("Scheduled prediction for {} finished: {} rows in {} ms",
+                    date, result.getRows(), result.getTotalMillis());
+        } catch (Exception e) {
+            logger.error("Scheduled prediction for {} failed", date, e);
+        }
+    }
+}
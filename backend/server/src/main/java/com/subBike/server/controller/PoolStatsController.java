@@ -0,0 +1,60 @@
+package com.subBike.server.controller;
+
+import com.subBike.server.config.ConcurrencyLimitedDataSource;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 连接池状态：每个 Hikari 池的活动/空闲/等待连接数
+ * 池同时注册为 JMX MBean（register-mbeans），可用 JConsole 等工具持续观察。
+ * 开启 subway.jdbc.limit 后另给出信号量上排队的请求数。同样的数据也在 /actuator/metrics（hikaricp.*）中。
+ */
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/admin/pools")
+@PreAuthorize("hasRole('ADMIN')")
+public class PoolStatsController {
+
+    @Autowired
+    private List<DataSource> dataSources;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Object>>> getPools() {
+        Map<String, Map<String, Object>> body = new LinkedHashMap<>();
+        for (DataSource dataSource : dataSources) {
+            // 池外面可能有限流、慢 SQL 或读写路由的包装；多个 bean 指向同一个池时只统计一次
+            HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+            if (pool == null || body.containsKey(pool.getPoolName())) {
+                continue;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("maximumPoolSize", pool.getMaximumPoolSize());
+            stats.put("minimumIdle", pool.getMinimumIdle());
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            if (bean != null) {
+                stats.put("active", bean.getActiveConnections());
+                stats.put("idle", bean.getIdleConnections());
+                stats.put("total", bean.getTotalConnections());
+                stats.put("waiting", bean.getThreadsAwaitingConnection());
+            }
+            ConcurrencyLimitedDataSource limiter = DataSourceUnwrapper.unwrap(dataSource, ConcurrencyLimitedDataSource.class);
+            if (limiter != null) {
+                stats.put("permitsAvailable", limiter.getAvailablePermits());
+                stats.put("permitsWaiting", limiter.getQueueLength());
+            }
+            body.put(pool.getPoolName(), stats);
+        }
+        return ResponseEntity.ok(body);
+    }
+}
@@ -3,9 +3,16 @@ package com.subBike.server.controller;
 import com.subBike.server.entity.SubAmount;
 import com.subBike.server.entity.dto.AmountDto;
 import com.subBike.server.entity.dto.DateAmountDto;
+import com.subBike.server.entity.dto.FlowHeatmap;
+import com.subBike.server.entity.dto.FlowMetric;
+import com.subBike.server.entity.dto.StationValues;
 import com.subBike.server.entity.dto.TimeAmountDto;
 import com.subBike.server.entity.dto.TimeSlotDto;
+import com.subBike.server.service.FlowHeatmapService;
+import com.subBike.server.service.FlowRankingService;
+import com.subBike.server.service.FlowRangeService;
 import com.subBike.server.service.ISubAmountService;
+import com.subBike.server.stream.FlowBroadcaster;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,8 +22,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.sql.Struct;
 import java.time.LocalDate;
@@ -30,6 +40,14 @@ import java.util.stream.Collectors;
 public class SubAmountController {
     @Autowired
     ISubAmountService subService;
+    @Autowired
+    FlowHeatmapService heatmapService;
+    @Autowired
+    FlowRangeService rangeService;
+    @Autowired
+    FlowRankingService rankingService;
+    @Autowired
+    FlowBroadcaster broadcaster;
 
     @GetMapping("/date")
     @Operation(
@@ -42,7 +60,7 @@ public class SubAmountController {
     )
 
 
-    public ResponseEntity<List>getAmount(
+    public ResponseEntity<?> getAmount(
             // 显式指定日期格式为 yyyy-MM-dd
              @DateTimeFormat(pattern = "yyyy-MM-dd") Date date,
             //request 要求为in、out、total
@@ -51,37 +69,8 @@ public class SubAmountController {
     )
     {
         try{
-            //返回 station，population的List<Map>
-            List<AmountDto>sublist=new ArrayList<>();
-            sublist.addAll(subService.findByDate(date));
-
-
-
-            List<Map<String,Long>> list=new ArrayList<>();
-            if(request.equals("in")) {
-                for(AmountDto dto:sublist){
-                    Map<String, Long> innerMap = new HashMap<>();
-                    innerMap.put(dto.getStation(),dto.getInNum());
-                    list.add(innerMap);
-                }
-            }
-            else if(request.equals("out")) {
-                for(AmountDto dto:sublist){
-                    Map<String, Long> innerMap = new HashMap<>();
-                    innerMap.put(dto.getStation(),dto.getOutNum());
-                    list.add(innerMap);
-                }
-            }
-            else{
-                for(AmountDto dto:sublist){
-                    Map<String, Long> innerMap = new HashMap<>();
-                    innerMap.put(dto.getStation(),dto.getInNum()+dto.getOutNum());
-                    list.add(innerMap);
-                }
-            }
-
-
-            return ResponseEntity.ok(list);
+            //返回 station，population 的列表，由 StationValuesHttpMessageConverter 直接写出
+            return ResponseEntity.ok(StationValues.entries(subService.findByDate(date), FlowMetric.of(request)));
         }
 
         catch(Exception e){
@@ -170,46 +159,187 @@ public class SubAmountController {
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
 
-    public ResponseEntity<List> getMap(  @DateTimeFormat(pattern = "yyyy-MM-dd") Date date, @RequestParam("request") String request){
+    public ResponseEntity<?> getMap(  @DateTimeFormat(pattern = "yyyy-MM-dd") Date date, @RequestParam("request") String request){
         try{
-            //返回 station，population的List<Map>
-            List<AmountDto>sublist=new ArrayList<>();
-            sublist.addAll(subService.getMap(date));
+            //返回 station，population 的列表，由 StationValuesHttpMessageConverter 直接写出
+            return ResponseEntity.ok(StationValues.entries(subService.getMap(date), FlowMetric.of(request)));
+        }
 
+        catch(Exception e){
+            return ResponseEntity.badRequest().body(Collections.singletonList(e.getMessage()));
+        }
 
+}
 
-            List<Map<String,Long>> list=new ArrayList<>();
-            if(request.equals("in")) {
-                for(AmountDto dto:sublist){
-                    Map<String, Long> innerMap = new HashMap<>();
-                    innerMap.put(dto.getStation(),dto.getInNum());
-                    list.add(innerMap);
-                }
-            }
-            else if(request.equals("out")) {
-                for(AmountDto dto:sublist){
-                    Map<String, Long> innerMap = new HashMap<>();
-                    innerMap.put(dto.getStation(),dto.getOutNum());
-                    list.add(innerMap);
-                }
-            }
-            else{
-                for(AmountDto dto:sublist){
-                    Map<String, Long> innerMap = new HashMap<>();
-                    innerMap.put(dto.getStation(),dto.getInNum()+dto.getOutNum());
-                    list.add(innerMap);
-                }
+    /**
+     * 获取指定日期的地图流量数据（列格式）
+     * @param date 查询日期，格式：yyyy-MM-dd
+     * @return {"stations":[...],"values":[...]}，两个数组按下标对应
+     */
+    @GetMapping("/map/columnar")
+    @Operation(
+            summary = "获取地图流量数据（列格式）",
+            description = "与 /map 数据相同，以站点数组和数值数组两列返回，体积更小",
+            parameters = {
+                    @Parameter(name = "date", description = "查询日期（格式：yyyy-MM-dd）",
+                            example = "2023-01-01", required = true),
+                    @Parameter(name = "request", description = "指标：in、out、total",
+                            example = "total", required = true)
             }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "400", description = "无效的日期格式"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<?> getMapColumnar(@DateTimeFormat(pattern = "yyyy-MM-dd") Date date, @RequestParam("request") String request){
+        try{
+            return ResponseEntity.ok(StationValues.columnar(subService.getMap(date), FlowMetric.of(request)));
+        }
+        catch(Exception e){
+            return ResponseEntity.badRequest().body(Collections.singletonList(e.getMessage()));
+        }
+    }
 
+    /**
+     * 日期范围内各站点逐小时的客流矩阵
+     * @param from 开始日期，格式：yyyy-MM-dd
+     * @param to 结束日期（含），格式：yyyy-MM-dd
+     * @return 列格式 JSON，或 Accept: application/octet-stream 时的二进制矩阵（格式见 FlowHeatmap）
+     */
+    @GetMapping(value = "/heatmap", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(
+            summary = "获取站点×小时客流矩阵",
+            description = "一次返回日期范围内每个站点 24 小时的合计客流，用于高峰时段规划",
+            parameters = {
+                    @Parameter(name = "from", description = "开始日期（格式：yyyy-MM-dd）",
+                            example = "2023-05-01", required = true),
+                    @Parameter(name = "to", description = "结束日期，包含当天（格式：yyyy-MM-dd）",
+                            example = "2023-05-31", required = true),
+                    @Parameter(name = "request", description = "指标：in、out、total、net",
+                            example = "total", required = true)
+            }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "400", description = "无效的日期范围"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<?> getHeatmap(@RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                        @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                        @RequestParam("request") String request) {
+        try {
+            return ResponseEntity.ok(heatmapService.getHeatmap(from, to, FlowMetric.of(request)));
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonList(e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(list);
+    /**
+     * 日期区间内按指标排名前 k 的站点
+     * @param from 开始日期，格式：yyyy-MM-dd
+     * @param to 结束日期（含），格式：yyyy-MM-dd
+     * @param request 指标：in、out、total、net（进站 - 出站）
+     * @param k 返回的站点数，默认 10
+     * @return 与 /date 相同的 [{"站点":数值}] 格式，按数值降序
+     */
+    @GetMapping("/top")
+    @Operation(
+            summary = "站点客流排行",
+            description = "任意日期区间、任意指标的前 k 个站点，如本月客流最大的站点",
+            parameters = {
+                    @Parameter(name = "from", description = "开始日期（格式：yyyy-MM-dd）",
+                            example = "2023-05-01", required = true),
+                    @Parameter(name = "to", description = "结束日期，包含当天（格式：yyyy-MM-dd）",
+                            example = "2023-05-31", required = true),
+                    @Parameter(name = "request", description = "指标：in、out、total、net",
+                            example = "total", required = true),
+                    @Parameter(name = "k", description = "返回的站点数", example = "10")
+            }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "400", description = "无效的日期范围或 k"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<?> getTop(@RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                    @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                    @RequestParam("request") String request,
+                                    @RequestParam(value = "k", defaultValue = "10") int k) {
+        try {
+            FlowMetric metric = FlowMetric.of(request);
+            return ResponseEntity.ok(StationValues.entries(rankingService.top(from, to, metric, k), metric));
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonList(e.getMessage()));
         }
+    }
 
-        catch(Exception e){
+    /**
+     * 日期区间 × 小时区间内各站点的进出站合计，查询开销与日期跨度无关
+     * @param from 开始日期，格式：yyyy-MM-dd
+     * @param to 结束日期（含），格式：yyyy-MM-dd
+     * @param hourFrom 开始小时（含），默认 0
+     * @param hourTo 结束小时（含），默认 23
+     * @param stations 站点列表，逗号分隔；不传则返回全部站点
+     * @return 列格式 JSON，格式见 FlowRangeSum
+     */
+    @GetMapping("/range")
+    @Operation(
+            summary = "区间客流合计",
+            description = "任意日期区间、小时区间、站点集合的进站与出站合计，如早高峰 7-9 点某几站的全年客流",
+            parameters = {
+                    @Parameter(name = "from", description = "开始日期（格式：yyyy-MM-dd）",
+                            example = "2023-05-01", required = true),
+                    @Parameter(name = "to", description = "结束日期，包含当天（格式：yyyy-MM-dd）",
+                            example = "2023-05-31", required = true),
+                    @Parameter(name = "hourFrom", description = "开始小时（0-23，含）", example = "7"),
+                    @Parameter(name = "hourTo", description = "结束小时（0-23，含）", example = "9"),
+                    @Parameter(name = "stations", description = "站点，逗号分隔；不传为全部站点",
+                            example = "西直门,北京站")
+            }
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "400", description = "无效的日期或小时范围"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<?> getRangeSum(@RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                         @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                         @RequestParam(value = "hourFrom", defaultValue = "0") int hourFrom,
+                                         @RequestParam(value = "hourTo", defaultValue = "23") int hourTo,
+                                         @RequestParam(value = "stations", required = false) List<String> stations) {
+        try {
+            return ResponseEntity.ok(rangeService.getRangeSum(from, to, hourFrom, hourTo, stations));
+        }
+        catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Collections.singletonList(e.getMessage()));
         }
+    }
 
-}
+    /**
+     * 订阅指定日期的客流变化（Server-Sent Events），替代定时轮询 /map 和 /trend
+     * @param date 订阅日期，格式：yyyy-MM-dd
+     * @return 先推送 snapshot 事件（全部站点），之后数据变化时推送 delta 事件（变化的站点），数据格式见 FlowDelta
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "订阅客流变化",
+            description = "SSE 推送指定日期各站点进出站合计与时段曲线的变化，服务端每次变化只聚合一次",
+            parameters = {
+                    @Parameter(name = "date", description = "订阅日期（格式：yyyy-MM-dd）",
+                            example = "2023-05-01", required = true)
+            }
+    )
+    public ResponseEntity<SseEmitter> stream(@RequestParam("date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+        SseEmitter emitter = broadcaster.subscribe(date);
+        if (emitter == null) {
+            // 订阅数已达上限
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
 
     @GetMapping("/trend")
     @Operation(
@@ -5,6 +5,7 @@ import com.subBike.server.entity.dto.UpdateEmailRequest;
 import com.subBike.server.entity.dto.UpdatePasswordRequest;
 import com.subBike.server.payload.response.MessageResponse;
 import com.subBike.server.mapper.UserRepository;
+import com.subBike.server.security.jwt.JwtUserCache;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +26,9 @@ public class UserController {
     @Autowired
     PasswordEncoder encoder;
 
+    @Autowired
+    JwtUserCache userCache;
+
     @PostMapping("/password")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> updatePassword(@Valid @RequestBody UpdatePasswordRequest updatePasswordRequest) {
@@ -38,6 +42,7 @@ public class UserController {
 
         user.setPassword(encoder.encode(updatePasswordRequest.getNewPassword()));
         userRepository.save(user);
+        userCache.invalidateUser(username);
 
         return ResponseEntity.ok(new MessageResponse("Password updated successfully!"));
     }
@@ -61,6 +66,7 @@ public class UserController {
 
         user.setEmail(updateEmailRequest.getNewEmail());
         userRepository.save(user);
+        userCache.invalidateUser(username);
 
         return ResponseEntity.ok(new MessageResponse("Email updated successfully!"));
     }
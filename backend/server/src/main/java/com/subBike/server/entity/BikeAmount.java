@@ -2,13 +2,16 @@ package com.subBike.server.entity;
 
 import com.subBike.server.entity.id.BikeAmountID;
 import com.subBike.server.entity.id.SubAmountID;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 import java.sql.Date;
-@Table(name="bikeAmount")
+@Table(name="bikeAmount",
+        indexes = @Index(name = "idx_bike_amount_station_date", columnList = "station_id, date"))
 @IdClass(BikeAmountID.class)
 @Entity
 public class BikeAmount {
@@ -17,6 +20,14 @@ public class BikeAmount {
     @Id
     Date date;
     Long number;
+    // stations.id，由 StationDictionary 按站名回填
+    @Column(name = "station_id")
+    Long stationId;
+    // 站点位置，来自 bike_amount.csv，供 BikeGeoIndex 做空间查询
+    @Column(name = "geohash", length = 12)
+    String geohash;
+    Double lng;
+    Double lat;
 
     public BikeAmount(String station, Date date, Long number) {
         this.station = station;
@@ -50,4 +61,36 @@ public class BikeAmount {
     public void setNumber(Long numBer) {
         this.number = numBer;
     }
+
+    public Long getStationId() {
+        return stationId;
+    }
+
+    public void setStationId(Long stationId) {
+        this.stationId = stationId;
+    }
+
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    public Double getLng() {
+        return lng;
+    }
+
+    public void setLng(Double lng) {
+        this.lng = lng;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
 }
@@ -0,0 +1,45 @@
+package com.subBike.server.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.sql.Date;
+
+/**
+ * 全网日汇总：subAmount 按 date 聚合，导入时维护
+ */
+@Table(name = "daily_flow")
+@Entity
+public class DailyFlow {
+    @Id
+    private Date date;
+    private Long inNum;
+    private Long outNum;
+
+    public DailyFlow() {}
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public Long getInNum() {
+        return inNum;
+    }
+
+    public void setInNum(Long inNum) {
+        this.inNum = inNum;
+    }
+
+    public Long getOutNum() {
+        return outNum;
+    }
+
+    public void setOutNum(Long outNum) {
+        this.outNum = outNum;
+    }
+}
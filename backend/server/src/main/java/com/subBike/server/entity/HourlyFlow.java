@@ -0,0 +1,55 @@
+package com.subBike.server.entity;
+
+import com.subBike.server.entity.id.HourlyFlowID;
+import jakarta.persistence.*;
+
+import java.sql.Date;
+
+/**
+ * 全网小时汇总：subAmount 按 (date, time) 聚合，导入时维护
+ */
+@Table(name = "hourly_flow")
+@IdClass(HourlyFlowID.class)
+@Entity
+public class HourlyFlow {
+    @Id
+    private Date date;
+    @Id
+    private Integer time;
+    private Long inNum;
+    private Long outNum;
+
+    public HourlyFlow() {}
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public Integer getTime() {
+        return time;
+    }
+
+    public void setTime(Integer time) {
+        this.time = time;
+    }
+
+    public Long getInNum() {
+        return inNum;
+    }
+
+    public void setInNum(Long inNum) {
+        this.inNum = inNum;
+    }
+
+    public Long getOutNum() {
+        return outNum;
+    }
+
+    public void setOutNum(Long outNum) {
+        this.outNum = outNum;
+    }
+}
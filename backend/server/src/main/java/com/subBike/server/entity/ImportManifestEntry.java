@@ -0,0 +1,102 @@
+package com.subBike.server.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * CSV 导入清单：每个文件一行，记录导入时的大小、修改时间、内容哈希和已提交进度
+ * 由 CsvImportApplication 维护，见 util/ImportManifest
+ */
+@Table(name = "import_manifest")
+@Entity
+public class ImportManifestEntry {
+    public enum Status {
+        IN_PROGRESS, DONE
+    }
+
+    @Id
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+    @Column(name = "file_size")
+    private Long fileSize;
+    // 文件修改时间（毫秒）
+    @Column(name = "modified_at")
+    private Long modifiedAt;
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+    @Column(name = "rows_committed")
+    private Long rowsCommitted;
+    // 已提交数据之后的下一行行首偏移量
+    @Column(name = "committed_offset")
+    private Long committedOffset;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16)
+    private Status status;
+    @Column(name = "updated_at")
+    private java.sql.Timestamp updatedAt;
+
+    public ImportManifestEntry() {}
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public Long getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public void setModifiedAt(Long modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public Long getRowsCommitted() {
+        return rowsCommitted;
+    }
+
+    public void setRowsCommitted(Long rowsCommitted) {
+        this.rowsCommitted = rowsCommitted;
+    }
+
+    public Long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    public void setCommittedOffset(Long committedOffset) {
+        this.committedOffset = committedOffset;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public java.sql.Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(java.sql.Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -10,7 +10,8 @@ import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
-@Table(name="predict")
+@Table(name="predict",
+        indexes = @Index(name = "idx_predict_date_station", columnList = "date, station"))
 @Entity
 public class Predict {
     @Id
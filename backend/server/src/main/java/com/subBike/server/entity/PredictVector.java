@@ -0,0 +1,104 @@
+package com.subBike.server.entity;
+
+import com.subBike.server.entity.dto.TimeSlotDto;
+import com.subBike.server.entity.id.PredictVectorID;
+import jakarta.persistence.*;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 站点单日预测的小时向量：predict 按 (date, station, HOUR(time_slot)) 聚合，写入预测结果时一并生成
+ *
+ * inPred / outPred 各 24 个 double（大端），hourMask 第 h 位表示该小时在 predict 中有行。
+ */
+@Table(name = "predict_vector")
+@IdClass(PredictVectorID.class)
+@Entity
+public class PredictVector {
+    public static final int HOURS = 24;
+    public static final int VECTOR_BYTES = HOURS * Double.BYTES;
+
+    @Id
+    private LocalDate date;
+    @Id
+    @Column(length = 100)
+    private String station;
+    private Integer hourMask;
+    @Column(length = VECTOR_BYTES)
+    private byte[] inPred;
+    @Column(length = VECTOR_BYTES)
+    private byte[] outPred;
+
+    public PredictVector() {}
+
+    /**
+     * 按小时顺序展开，time 为整点
+     */
+    public List<TimeSlotDto> toTimeSlots() {
+        return toTimeSlots(hourMask, inPred, outPred);
+    }
+
+    public static List<TimeSlotDto> toTimeSlots(int hourMask, byte[] inPred, byte[] outPred) {
+        List<TimeSlotDto> list = new ArrayList<>(Integer.bitCount(hourMask));
+        ByteBuffer in = ByteBuffer.wrap(inPred);
+        ByteBuffer out = ByteBuffer.wrap(outPred);
+        for (int h = 0; h < HOURS; h++) {
+            if ((hourMask & (1 << h)) != 0) {
+                list.add(new TimeSlotDto(LocalTime.of(h, 0), in.getDouble(h * Double.BYTES), out.getDouble(h * Double.BYTES)));
+            }
+        }
+        return list;
+    }
+
+    public static byte[] pack(double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(VECTOR_BYTES);
+        for (int h = 0; h < HOURS; h++) {
+            buffer.putDouble(values[h]);
+        }
+        return buffer.array();
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getStation() {
+        return station;
+    }
+
+    public void setStation(String station) {
+        this.station = station;
+    }
+
+    public Integer getHourMask() {
+        return hourMask;
+    }
+
+    public void setHourMask(Integer hourMask) {
+        this.hourMask = hourMask;
+    }
+
+    public byte[] getInPred() {
+        return inPred;
+    }
+
+    public void setInPred(byte[] inPred) {
+        this.inPred = inPred;
+    }
+
+    public byte[] getOutPred() {
+        return outPred;
+    }
+
+    public void setOutPred(byte[] outPred) {
+        this.outPred = outPred;
+    }
+}
@@ -4,12 +4,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "stations")
+@Table(name = "stations",
+        indexes = @Index(name = "uk_stations_name", columnList = "name", unique = true))
 @Data
 @NoArgsConstructor
 public class Station {
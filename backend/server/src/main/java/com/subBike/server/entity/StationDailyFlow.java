@@ -0,0 +1,66 @@
+package com.subBike.server.entity;
+
+import com.subBike.server.entity.id.StationDailyFlowID;
+import jakarta.persistence.*;
+
+import java.sql.Date;
+
+/**
+ * 站点日汇总：subAmount 按 (date, station) 聚合，导入时维护
+ */
+@Table(name = "station_daily_flow",
+        indexes = @Index(name = "idx_station_daily_flow_station_date", columnList = "station_id, date"))
+@IdClass(StationDailyFlowID.class)
+@Entity
+public class StationDailyFlow {
+    @Id
+    private Date date;
+    @Id
+    private String station;
+    private Long inNum;
+    private Long outNum;
+    @Column(name = "station_id")
+    private Long stationId;
+
+    public StationDailyFlow() {}
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public String getStation() {
+        return station;
+    }
+
+    public void setStation(String station) {
+        this.station = station;
+    }
+
+    public Long getInNum() {
+        return inNum;
+    }
+
+    public void setInNum(Long inNum) {
+        this.inNum = inNum;
+    }
+
+    public Long getOutNum() {
+        return outNum;
+    }
+
+    public void setOutNum(Long outNum) {
+        this.outNum = outNum;
+    }
+
+    public Long getStationId() {
+        return stationId;
+    }
+
+    public void setStationId(Long stationId) {
+        this.stationId = stationId;
+    }
+}
@@ -4,7 +4,8 @@ import com.subBike.server.entity.id.SubAmountID;
 import jakarta.persistence.*;
 
 import java.sql.Date;
-@Table(name="subAmount")
+@Table(name="subAmount",
+        indexes = @Index(name = "idx_sub_amount_station_date", columnList = "station_id, date"))
 @IdClass(SubAmountID.class)
 @Entity
 public class SubAmount {
@@ -16,6 +17,9 @@ public class SubAmount {
     private Integer time;
     private Integer inNum;
     private Integer outNum;
+    // stations.id，由 StationDictionary / 导入时按站名分配
+    @Column(name = "station_id")
+    private Long stationId;
 
     public Date getDate() {
         return date;
@@ -63,5 +67,13 @@ public class SubAmount {
         this.outNum = outNum;
     }
 
+    public Long getStationId() {
+        return stationId;
+    }
+
+    public void setStationId(Long stationId) {
+        this.stationId = stationId;
+    }
+
     public SubAmount() {}
 }
@@ -3,8 +3,11 @@ package com.subBike.server.entity.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.io.Serializable;
+
 @Schema(description = "流量数据传输对象")
-public class AmountDto {
+public class AmountDto implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     @Schema(description = "站点名", example = "西直门", required = true)
     private String station;
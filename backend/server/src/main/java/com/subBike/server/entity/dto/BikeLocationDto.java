@@ -0,0 +1,85 @@
+package com.subBike.server.entity.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+
+@Schema(description = "站点单车位置数据传输对象")
+public class BikeLocationDto implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "站点名", example = "西直门", required = true)
+    private String stationName;
+
+    @Schema(description = "站点 geohash", example = "wx4g0bb", required = true)
+    private String geohash;
+
+    @Schema(description = "经度", example = "116.401216", required = true)
+    private Double lng;
+
+    @Schema(description = "纬度", example = "39.90778", required = true)
+    private Double lat;
+
+    @Schema(description = "单车", example = "77", required = true)
+    private Long number;
+
+    @Schema(description = "与中心站点的距离（米），矩形查询时为空", example = "350.5")
+    private Double distance;
+
+    public BikeLocationDto(String stationName, String geohash, Double lng, Double lat, Long number, Double distance) {
+        this.stationName = stationName;
+        this.geohash = geohash;
+        this.lng = lng;
+        this.lat = lat;
+        this.number = number;
+        this.distance = distance;
+    }
+
+    public String getStationName() {
+        return stationName;
+    }
+
+    public void setStationName(String stationName) {
+        this.stationName = stationName;
+    }
+
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    public Double getLng() {
+        return lng;
+    }
+
+    public void setLng(Double lng) {
+        this.lng = lng;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Long getNumber() {
+        return number;
+    }
+
+    public void setNumber(Long number) {
+        this.number = number;
+    }
+
+    public Double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(Double distance) {
+        this.distance = distance;
+    }
+}
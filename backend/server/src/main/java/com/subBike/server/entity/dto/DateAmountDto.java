@@ -2,10 +2,13 @@ package com.subBike.server.entity.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.io.Serializable;
 import java.sql.Date;
 
 @Schema(description = "日期流量数据传输对象")
-public class DateAmountDto {
+public class DateAmountDto implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Schema(description = "日期", example = "2019-05-03", required = true)
     private Date date;
 
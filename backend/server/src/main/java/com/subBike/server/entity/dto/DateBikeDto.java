@@ -4,10 +4,12 @@ package com.subBike.server.entity.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.io.Serializable;
 import java.util.Date;
 
 @Schema(description = "某站全部单车数据传输对象")
-public class DateBikeDto {
+public class DateBikeDto implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     @Schema(description = "站点名", example = "西直门", required = true)
     private Date date;
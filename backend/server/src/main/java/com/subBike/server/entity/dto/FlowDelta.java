@@ -0,0 +1,53 @@
+package com.subBike.server.entity.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * 推送给仪表盘的某天客流变化（SSE 事件 snapshot / delta 的数据）
+ *
+ * 列格式：stations、inNum、outNum 按下标对应，只包含有变化的站点（snapshot 为全部站点），
+ * 数值是当天的最新合计而非差值，客户端直接覆盖；trend 为当天 24 小时曲线（与 /trend 一致），
+ * 没有变化时为 null。
+ */
+public class FlowDelta {
+    private final String date;
+    private final List<String> stations;
+    private final long[] inNum;
+    private final long[] outNum;
+    private final List<TimeAmountDto> trend;
+
+    public FlowDelta(String date, List<String> stations, long[] inNum, long[] outNum, List<TimeAmountDto> trend) {
+        this.date = date;
+        this.stations = stations;
+        this.inNum = inNum;
+        this.outNum = outNum;
+        this.trend = trend;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public List<String> getStations() {
+        return stations;
+    }
+
+    public long[] getInNum() {
+        return inNum;
+    }
+
+    public long[] getOutNum() {
+        return outNum;
+    }
+
+    public List<TimeAmountDto> getTrend() {
+        return trend;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return stations.isEmpty() && trend == null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.subBike.server.entity.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 日期范围内站点 × 小时的客流矩阵，由 FlowHeatmapHttpMessageConverter 直接写出
+ *
+ * JSON（列格式，values 按站点行优先展开，第 i 个站点第 h 小时在 values[i * 24 + h]）：
+ * {"from":"2023-05-01","to":"2023-05-31","metric":"total","hours":24,"stations":["西直门",...],"values":[...]}
+ *
+ * 二进制（application/octet-stream，大端）：
+ * int 站点数 n，int 小时数 24，n 个站点名（DataOutput.writeUTF），n * 24 个 int 数值
+ */
+public class FlowHeatmap {
+    public static final int HOURS = 24;
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final FlowMetric metric;
+    private final List<String> stations;
+    private final int[][] values;
+
+    public FlowHeatmap(LocalDate from, LocalDate to, FlowMetric metric, List<String> stations, int[][] values) {
+        this.from = from;
+        this.to = to;
+        this.metric = metric;
+        this.stations = stations;
+        this.values = values;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public FlowMetric getMetric() {
+        return metric;
+    }
+
+    public List<String> getStations() {
+        return stations;
+    }
+
+    /**
+     * values[i][h]：stations 中第 i 个站点第 h 小时的合计
+     */
+    public int[][] getValues() {
+        return values;
+    }
+}
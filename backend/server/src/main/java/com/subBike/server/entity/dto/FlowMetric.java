@@ -0,0 +1,53 @@
+package com.subBike.server.entity.dto;
+
+/**
+ * 接口参数 request 对应的流量指标：in、out、total、net（进站 - 出站）
+ */
+public enum FlowMetric {
+    IN {
+        @Override
+        public long value(long in, long out) {
+            return in;
+        }
+    },
+    OUT {
+        @Override
+        public long value(long in, long out) {
+            return out;
+        }
+    },
+    TOTAL {
+        @Override
+        public long value(long in, long out) {
+            return in + out;
+        }
+    },
+    NET {
+        @Override
+        public long value(long in, long out) {
+            return in - out;
+        }
+    };
+
+    public abstract long value(long in, long out);
+
+    public long value(AmountDto dto) {
+        return value(dto.getInNum(), dto.getOutNum());
+    }
+
+    /**
+     * "in"、"out"、"net" 之外的取值均按 total 处理，与原接口一致
+     */
+    public static FlowMetric of(String request) {
+        if ("in".equals(request)) {
+            return IN;
+        }
+        if ("out".equals(request)) {
+            return OUT;
+        }
+        if ("net".equals(request)) {
+            return NET;
+        }
+        return TOTAL;
+    }
+}
@@ -0,0 +1,74 @@
+package com.subBike.server.entity.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 日期区间 × 小时区间内各站点的进出站合计（/api/subway/range）
+ *
+ * 列格式：stations、inNum、outNum 按下标对应；inTotal、outTotal 为所选站点的合计。
+ */
+public class FlowRangeSum {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int hourFrom;
+    private final int hourTo;
+    private final List<String> stations;
+    private final long[] inNum;
+    private final long[] outNum;
+
+    public FlowRangeSum(LocalDate from, LocalDate to, int hourFrom, int hourTo,
+                        List<String> stations, long[] inNum, long[] outNum) {
+        this.from = from;
+        this.to = to;
+        this.hourFrom = hourFrom;
+        this.hourTo = hourTo;
+        this.stations = stations;
+        this.inNum = inNum;
+        this.outNum = outNum;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public int getHourFrom() {
+        return hourFrom;
+    }
+
+    public int getHourTo() {
+        return hourTo;
+    }
+
+    public List<String> getStations() {
+        return stations;
+    }
+
+    public long[] getInNum() {
+        return inNum;
+    }
+
+    public long[] getOutNum() {
+        return outNum;
+    }
+
+    public long getInTotal() {
+        long total = 0L;
+        for (long value : inNum) {
+            total += value;
+        }
+        return total;
+    }
+
+    public long getOutTotal() {
+        long total = 0L;
+        for (long value : outNum) {
+            total += value;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,61 @@
+package com.subBike.server.entity.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+
+@Schema(description = "站点单车调度数据传输对象")
+public class StationRebalanceDto implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "站点名", example = "西直门", required = true)
+    private String stationName;
+
+    @Schema(description = "当天单车数", example = "120", required = true)
+    private Long number;
+
+    @Schema(description = "此前各天平均单车数（四舍五入）", example = "150", required = true)
+    private Long expected;
+
+    @Schema(description = "缺口 = 平均数 - 当天数，正数需调入，负数可调出", example = "30", required = true)
+    private Long gap;
+
+    public StationRebalanceDto(String stationName, Long number, Long expected, Long gap) {
+        this.stationName = stationName;
+        this.number = number;
+        this.expected = expected;
+        this.gap = gap;
+    }
+
+    public String getStationName() {
+        return stationName;
+    }
+
+    public void setStationName(String stationName) {
+        this.stationName = stationName;
+    }
+
+    public Long getNumber() {
+        return number;
+    }
+
+    public void setNumber(Long number) {
+        this.number = number;
+    }
+
+    public Long getExpected() {
+        return expected;
+    }
+
+    public void setExpected(Long expected) {
+        this.expected = expected;
+    }
+
+    public Long getGap() {
+        return gap;
+    }
+
+    public void setGap(Long gap) {
+        this.gap = gap;
+    }
+}
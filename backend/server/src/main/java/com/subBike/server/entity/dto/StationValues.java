@@ -0,0 +1,41 @@
+package com.subBike.server.entity.dto;
+
+import java.util.List;
+
+/**
+ * 站点 → 单一指标值的响应，由 StationValuesHttpMessageConverter 直接流式写出，不生成中间 Map
+ *
+ * 行格式：[{"西直门":123}, {"北京站":456}]
+ * 列格式：{"stations":["西直门","北京站"],"values":[123,456]}
+ */
+public class StationValues {
+    private final List<AmountDto> rows;
+    private final FlowMetric metric;
+    private final boolean columnar;
+
+    private StationValues(List<AmountDto> rows, FlowMetric metric, boolean columnar) {
+        this.rows = rows;
+        this.metric = metric;
+        this.columnar = columnar;
+    }
+
+    public static StationValues entries(List<AmountDto> rows, FlowMetric metric) {
+        return new StationValues(rows, metric, false);
+    }
+
+    public static StationValues columnar(List<AmountDto> rows, FlowMetric metric) {
+        return new StationValues(rows, metric, true);
+    }
+
+    public List<AmountDto> getRows() {
+        return rows;
+    }
+
+    public FlowMetric getMetric() {
+        return metric;
+    }
+
+    public boolean isColumnar() {
+        return columnar;
+    }
+}
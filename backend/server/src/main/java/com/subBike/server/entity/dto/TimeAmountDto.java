@@ -2,9 +2,12 @@ package com.subBike.server.entity.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.io.Serializable;
 import java.sql.Date;
 @Schema(description = "时刻流量数据传输对象")
-public class TimeAmountDto {
+public class TimeAmountDto implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Schema(description = "时间", example = "8", required = true)
     private Integer time;
 
@@ -4,11 +4,14 @@ package com.subBike.server.entity.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.io.Serializable;
 import java.sql.Date;
 import java.time.LocalTime;
 
 @Schema(description = "时刻流量数据传输对象")
-public class TimeSlotDto {
+public class TimeSlotDto implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Schema(description = "时间", example = "8", required = true)
     private LocalTime time;
 
@@ -0,0 +1,46 @@
+package com.subBike.server.entity.id;
+
+import java.io.Serializable;
+import java.sql.Date;
+import java.util.Objects;
+
+public class HourlyFlowID implements Serializable {
+    private Date date;
+    private Integer time;
+
+    public HourlyFlowID() {}
+
+    public HourlyFlowID(Date date, Integer time) {
+        this.date = date;
+        this.time = time;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HourlyFlowID that = (HourlyFlowID) o;
+        return Objects.equals(date, that.date) && Objects.equals(time, that.time);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, time);
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public Integer getTime() {
+        return time;
+    }
+
+    public void setTime(Integer time) {
+        this.time = time;
+    }
+}
@@ -0,0 +1,46 @@
+package com.subBike.server.entity.id;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+public class PredictVectorID implements Serializable {
+    private LocalDate date;
+    private String station;
+
+    public PredictVectorID() {}
+
+    public PredictVectorID(LocalDate date, String station) {
+        this.date = date;
+        this.station = station;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PredictVectorID that = (PredictVectorID) o;
+        return Objects.equals(date, that.date) && Objects.equals(station, that.station);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, station);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getStation() {
+        return station;
+    }
+
+    public void setStation(String station) {
+        this.station = station;
+    }
+}
@@ -0,0 +1,46 @@
+package com.subBike.server.entity.id;
+
+import java.io.Serializable;
+import java.sql.Date;
+import java.util.Objects;
+
+public class StationDailyFlowID implements Serializable {
+    private Date date;
+    private String station;
+
+    public StationDailyFlowID() {}
+
+    public StationDailyFlowID(Date date, String station) {
+        this.date = date;
+        this.station = station;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StationDailyFlowID that = (StationDailyFlowID) o;
+        return Objects.equals(date, that.date) && Objects.equals(station, that.station);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, station);
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public String getStation() {
+        return station;
+    }
+
+    public void setStation(String station) {
+        this.station = station;
+    }
+}
@@ -0,0 +1,45 @@
+package com.subBike.server.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 某些日期的数据被写入/修改后发布（CSV 导入、预测写入等）
+ * 缓存、内存副本等派生数据据此按日期精确失效或刷新。
+ */
+public class FlowDataChangedEvent extends ApplicationEvent {
+
+    public enum Dataset {
+        /** subAmount 地铁客流 */
+        SUBWAY,
+        /** bikeAmount 单车数量 */
+        BIKE,
+        /** predict 预测客流 */
+        PREDICT
+    }
+
+    private final Dataset dataset;
+    private final Set<LocalDate> dates;
+
+    public FlowDataChangedEvent(Object source, Dataset dataset, Set<LocalDate> dates) {
+        super(source);
+        this.dataset = dataset;
+        this.dates = Collections.unmodifiableSet(new TreeSet<>(dates));
+    }
+
+    public FlowDataChangedEvent(Object source, Dataset dataset, LocalDate date) {
+        this(source, dataset, Collections.singleton(date));
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public Set<LocalDate> getDates() {
+        return dates;
+    }
+}
@@ -0,0 +1,128 @@
+package com.subBike.server.export;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * 分块列式二进制格式（大端）
+ *
+ * 头部：int 魔数 "SBEX"，short 版本，short 列数，每列 writeUTF 列名 + byte 类型（ExportColumn.Type 的序号）
+ * 数据块：int 行数；int 本块新增字符串数 + 依次 writeUTF（字典编号接着上一块递增）；
+ * 之后逐列写出本块全部值：DATE（epochDay）、TIME（当天秒数）、STRING（字典编号）、INT 写 int，DOUBLE 写 double
+ * 结尾：行数为 0 的块，导出中途失败时不写，读到流结束而没有结尾块即为不完整
+ *
+ * 每块最多 BLOCK_ROWS 行，写满即输出；字符串只有站点、区县等，字典大小有限。
+ */
+class ColumnarExportWriter implements ExportWriter {
+    static final int MAGIC = 0x53424558; // "SBEX"
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 8192;
+
+    private final DataOutputStream out;
+    private final ExportColumn.Type[] types;
+    private final int[][] ints;
+    private final double[][] doubles;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> added = new ArrayList<>();
+    private int rows;
+    private int column;
+
+    ColumnarExportWriter(OutputStream stream, List<ExportColumn> columns) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+        this.types = new ExportColumn.Type[columns.size()];
+        this.ints = new int[columns.size()][];
+        this.doubles = new double[columns.size()][];
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(columns.size());
+        for (int c = 0; c < types.length; c++) {
+            types[c] = columns.get(c).getType();
+            out.writeUTF(columns.get(c).getName());
+            out.writeByte(types[c].ordinal());
+            if (types[c] == ExportColumn.Type.DOUBLE) {
+                doubles[c] = new double[BLOCK_ROWS];
+            } else {
+                ints[c] = new int[BLOCK_ROWS];
+            }
+        }
+    }
+
+    @Override
+    public void date(LocalDate value) {
+        ints[column++][rows] = (int) value.toEpochDay();
+    }
+
+    @Override
+    public void string(String value) {
+        Integer id = dictionary.get(value);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.put(value, id);
+            added.add(value);
+        }
+        ints[column++][rows] = id;
+    }
+
+    @Override
+    public void integer(int value) {
+        ints[column++][rows] = value;
+    }
+
+    @Override
+    public void decimal(double value) {
+        doubles[column++][rows] = value;
+    }
+
+    @Override
+    public void time(LocalTime value) {
+        ints[column++][rows] = value.toSecondOfDay();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        column = 0;
+        if (++rows == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            flushBlock();
+        }
+        out.writeInt(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        // 只有堆上的缓冲，没有要释放的资源；未 finish() 时不写结尾块
+    }
+
+    private void flushBlock() throws IOException {
+        out.writeInt(rows);
+        out.writeInt(added.size());
+        for (String value : added) {
+            out.writeUTF(value);
+        }
+        added.clear();
+        for (int c = 0; c < types.length; c++) {
+            if (doubles[c] != null) {
+                for (int r = 0; r < rows; r++) {
+                    out.writeDouble(doubles[c][r]);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    out.writeInt(ints[c][r]);
+                }
+            }
+        }
+        rows = 0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.subBike.server.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip 压缩的 CSV：首行列名，日期 yyyy-MM-dd，时间 HH:mm，含逗号、引号或换行的字段加双引号
+ */
+class CsvExportWriter implements ExportWriter {
+    private static final int BUFFER = 64 * 1024;
+
+    private final Gzip gzip;
+    private final BufferedWriter writer;
+    private boolean first = true;
+
+    CsvExportWriter(OutputStream out, List<ExportColumn> columns) throws IOException {
+        this.gzip = new Gzip(out, BUFFER);
+        this.writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER);
+        for (ExportColumn column : columns) {
+            string(column.getName());
+        }
+        endRow();
+    }
+
+    @Override
+    public void date(LocalDate value) throws IOException {
+        cell(value.toString());
+    }
+
+    @Override
+    public void string(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            cell(value);
+        } else {
+            cell('"' + value.replace("\"", "\"\"") + '"');
+        }
+    }
+
+    @Override
+    public void integer(int value) throws IOException {
+        separate();
+        writer.write(Integer.toString(value));
+    }
+
+    @Override
+    public void decimal(double value) throws IOException {
+        separate();
+        writer.write(Double.toString(value));
+    }
+
+    @Override
+    public void time(LocalTime value) throws IOException {
+        cell(value.toString());
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        writer.write('\n');
+        first = true;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+        gzip.finish();
+        gzip.flush();
+    }
+
+    @Override
+    public void close() {
+        gzip.release();
+    }
+
+    private void cell(String value) throws IOException {
+        separate();
+        writer.write(value);
+    }
+
+    private void separate() throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        first = false;
+    }
+
+    /**
+     * GZIPOutputStream.close() 会先写出尾部并关闭底层流，这里只释放压缩器
+     */
+    private static final class Gzip extends GZIPOutputStream {
+        Gzip(OutputStream out, int size) throws IOException {
+            super(out, size);
+        }
+
+        void release() {
+            def.end();
+        }
+    }
+}
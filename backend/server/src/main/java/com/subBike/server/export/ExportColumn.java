@@ -0,0 +1,27 @@
+package com.subBike.server.export;
+
+/**
+ * 导出文件中的一列
+ */
+public final class ExportColumn {
+    public enum Type {
+        // 二进制格式中的类型码即 ordinal
+        DATE, STRING, INT, DOUBLE, TIME
+    }
+
+    private final String name;
+    private final Type type;
+
+    public ExportColumn(String name, Type type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
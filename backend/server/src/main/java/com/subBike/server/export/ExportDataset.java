@@ -0,0 +1,77 @@
+package com.subBike.server.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static com.subBike.server.export.ExportColumn.Type.*;
+
+/**
+ * 可导出的表，接口路径 /api/export/{subway|bike|predict}
+ * SQL 的列顺序与 columns 一致，只带日期区间两个参数，按日期、站点排序
+ */
+public enum ExportDataset {
+    SUBWAY("SELECT date, station, time, in_num, out_num FROM sub_amount " +
+            "WHERE date BETWEEN ? AND ? ORDER BY date, station, time",
+            new ExportColumn("date", DATE), new ExportColumn("station", STRING), new ExportColumn("hour", INT),
+            new ExportColumn("in_num", INT), new ExportColumn("out_num", INT)),
+    BIKE("SELECT date, station, number FROM bike_amount " +
+            "WHERE date BETWEEN ? AND ? ORDER BY date, station",
+            new ExportColumn("date", DATE), new ExportColumn("station", STRING), new ExportColumn("number", INT)),
+    PREDICT("SELECT date, station, district, time_slot, in_count_pred, outcount_pred FROM predict " +
+            "WHERE date BETWEEN ? AND ? ORDER BY date, station",
+            new ExportColumn("date", DATE), new ExportColumn("station", STRING), new ExportColumn("district", STRING),
+            new ExportColumn("time_slot", TIME), new ExportColumn("in_pred", DOUBLE), new ExportColumn("out_pred", DOUBLE));
+
+    private final String sql;
+    private final List<ExportColumn> columns;
+
+    ExportDataset(String sql, ExportColumn... columns) {
+        this.sql = sql;
+        this.columns = List.of(columns);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<ExportColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 把游标当前行按列类型写出
+     */
+    void copy(ResultSet rs, ExportWriter writer) throws SQLException, IOException {
+        for (int c = 0; c < columns.size(); c++) {
+            switch (columns.get(c).getType()) {
+                case DATE:
+                    writer.date(rs.getDate(c + 1).toLocalDate());
+                    break;
+                case STRING:
+                    String value = rs.getString(c + 1);
+                    writer.string(value == null ? "" : value);
+                    break;
+                case INT:
+                    writer.integer(rs.getInt(c + 1));
+                    break;
+                case DOUBLE:
+                    writer.decimal(rs.getDouble(c + 1));
+                    break;
+                default:
+                    writer.time(rs.getTime(c + 1).toLocalTime());
+            }
+        }
+        writer.endRow();
+    }
+
+    public static ExportDataset of(String name) {
+        for (ExportDataset value : values()) {
+            if (value.name().equalsIgnoreCase(name)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出数据: " + name);
+    }
+}
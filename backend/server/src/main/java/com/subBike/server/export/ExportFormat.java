@@ -0,0 +1,50 @@
+package com.subBike.server.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 导出格式，接口参数 format：csv（gzip 压缩）、bin（分块列式二进制，见 ColumnarExportWriter）
+ */
+public enum ExportFormat {
+    CSV("application/gzip", ".csv.gz") {
+        @Override
+        public ExportWriter open(OutputStream out, List<ExportColumn> columns) throws IOException {
+            return new CsvExportWriter(out, columns);
+        }
+    },
+    BIN("application/octet-stream", ".bin") {
+        @Override
+        public ExportWriter open(OutputStream out, List<ExportColumn> columns) throws IOException {
+            return new ColumnarExportWriter(out, columns);
+        }
+    };
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public abstract ExportWriter open(OutputStream out, List<ExportColumn> columns) throws IOException;
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat of(String format) {
+        for (ExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出格式: " + format);
+    }
+}
@@ -0,0 +1,31 @@
+package com.subBike.server.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * 逐行编码导出数据：每行按列顺序调用对应类型的方法，最后 endRow()
+ * 只缓冲固定大小的数据，写满即输出到底层流。全部行写完后调用 finish() 写出尾部；
+ * close() 只释放资源，不写任何内容、不关闭底层流，未 finish() 就关闭的输出是不完整的，客户端可据此判断导出中断
+ */
+public interface ExportWriter extends Closeable {
+
+    void date(LocalDate value) throws IOException;
+
+    void string(String value) throws IOException;
+
+    void integer(int value) throws IOException;
+
+    void decimal(double value) throws IOException;
+
+    void time(LocalTime value) throws IOException;
+
+    void endRow() throws IOException;
+
+    /**
+     * 写出尾部并刷新到底层流，只在全部行成功写入后调用
+     */
+    void finish() throws IOException;
+}
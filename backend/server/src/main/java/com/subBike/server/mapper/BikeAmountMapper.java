@@ -30,19 +30,12 @@ public interface BikeAmountMapper extends JpaRepository<SubAmount, SubAmountID>
     List<StationBikeDto> findTotal(@Param("date") Date date);
 
 
-    @Query("SELECT new com.subBike.server.entity.dto.StationBikeDto(b.station, b.number)" +
-            "FROM BikeAmount b " +
-            "WHERE b.date = :date " +
-            "ORDER BY b.number DESC " +
-            "LIMIT 10")
-
-    List<StationBikeDto> findByDate(@Param("date") Date date);
-
     @Query("SELECT new com.subBike.server.entity.dto.DateBikeDto(b.date,b.number)" +
             "FROM BikeAmount b " +
-            "WHERE b.station = :station ")
+            "WHERE b.stationId = :stationId " +
+            "ORDER BY b.date")
 
-    List<DateBikeDto> findByStation(@Param("station") String station);
+    List<DateBikeDto> findByStation(@Param("stationId") Long stationId);
 
 
 
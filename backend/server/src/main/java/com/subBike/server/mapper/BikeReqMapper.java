@@ -30,17 +30,6 @@ public interface BikeReqMapper extends JpaRepository<SubAmount, SubAmountID> {
 //    select station,num_ber from bike_amount where date='2019-05-06';
 //    select date,num_ber from bike_amount where station='西直门';
     List<StationBikeDto> findTotal(@Param("date") Date date);
-    @Query("SELECT number "+
-           "FROM BikeAmount "+
-           "WHERE date=:date and station=:station"
-    )
-    Long get_num(@Param("date") Date date, @Param("station") String station);
-
-    @Query("SELECT AVG(number) "+
-           "FROM BikeAmount "+
-           "WHERE date<:date and station=:station"
-    )
-    Double get_avg(@Param("date") Date date, @Param("station") String station);
 
 }
 
@@ -0,0 +1,94 @@
+package com.subBike.server.mapper;
+
+import com.subBike.server.entity.DailyFlow;
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.entity.dto.DateAmountDto;
+import com.subBike.server.entity.dto.TimeAmountDto;
+import com.subBike.server.util.FlowRollupSql;
+import com.subBike.server.util.StationIdSql;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 汇总表查询与维护，结果与 SubAmountMapper 中对应的 GROUP BY 查询一致
+ */
+@Repository
+public interface FlowRollupMapper extends JpaRepository<DailyFlow, java.sql.Date> {
+
+    @Query("SELECT new com.subBike.server.entity.dto.AmountDto(r.station, r.inNum, r.outNum) " +
+            "FROM StationDailyFlow r " +
+            "WHERE r.date = :date " +
+            "ORDER BY (r.inNum + r.outNum) DESC " +
+            "LIMIT 10")
+    List<AmountDto> findByDate(@Param("date") Date date);
+
+    @Query("SELECT new com.subBike.server.entity.dto.DateAmountDto(d.date, d.inNum, d.outNum) " +
+            "FROM DailyFlow d " +
+            "ORDER BY d.date")
+    List<DateAmountDto> findTotal();
+
+    @Query("SELECT new com.subBike.server.entity.dto.DateAmountDto(r.date, r.inNum, r.outNum) " +
+            "FROM StationDailyFlow r " +
+            "WHERE r.stationId = :stationId " +
+            "AND r.date BETWEEN :startDate AND :endDate " +
+            "ORDER BY r.date")
+    List<DateAmountDto> getWeeklyTotals(
+            @Param("stationId") Long stationId,
+            @Param("startDate") Date startDate,
+            @Param("endDate") Date endDate);
+
+    @Query("SELECT new com.subBike.server.entity.dto.AmountDto(r.station, r.inNum, r.outNum) " +
+            "FROM StationDailyFlow r " +
+            "WHERE r.date = :date")
+    List<AmountDto> getMap(@Param("date") Date date);
+
+    @Query("SELECT new com.subBike.server.entity.dto.TimeAmountDto(h.time, h.inNum, h.outNum) " +
+            "FROM HourlyFlow h " +
+            "WHERE h.date = :date " +
+            "ORDER BY h.time")
+    List<TimeAmountDto> getTrend(@Param("date") Date date);
+
+    @Query(value = "SELECT DISTINCT date FROM sub_amount", nativeQuery = true)
+    List<java.sql.Date> findSourceDates();
+
+    @Query(value = "SELECT COUNT(*) FROM sub_amount WHERE date = :date", nativeQuery = true)
+    long countSourceRows(@Param("date") java.sql.Date date);
+
+    @Modifying
+    @Query(value = StationIdSql.INSERT_MISSING_FROM_SUB_AMOUNT_DAY, nativeQuery = true)
+    int insertMissingStations(@Param("date") java.sql.Date date);
+
+    @Modifying
+    @Query(value = StationIdSql.ASSIGN_SUB_AMOUNT_DAY, nativeQuery = true)
+    int assignStationIds(@Param("date") java.sql.Date date);
+
+    @Modifying
+    @Query(value = FlowRollupSql.DELETE_STATION_DAILY, nativeQuery = true)
+    int deleteStationDaily(@Param("date") java.sql.Date date);
+
+    @Modifying
+    @Query(value = FlowRollupSql.INSERT_STATION_DAILY, nativeQuery = true)
+    int insertStationDaily(@Param("date") java.sql.Date date);
+
+    @Modifying
+    @Query(value = FlowRollupSql.DELETE_DAILY, nativeQuery = true)
+    int deleteDaily(@Param("date") java.sql.Date date);
+
+    @Modifying
+    @Query(value = FlowRollupSql.INSERT_DAILY, nativeQuery = true)
+    int insertDaily(@Param("date") java.sql.Date date);
+
+    @Modifying
+    @Query(value = FlowRollupSql.DELETE_HOURLY, nativeQuery = true)
+    int deleteHourly(@Param("date") java.sql.Date date);
+
+    @Modifying
+    @Query(value = FlowRollupSql.INSERT_HOURLY, nativeQuery = true)
+    int insertHourly(@Param("date") java.sql.Date date);
+}
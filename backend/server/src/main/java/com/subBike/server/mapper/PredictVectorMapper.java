@@ -0,0 +1,21 @@
+package com.subBike.server.mapper;
+
+import com.subBike.server.entity.PredictVector;
+import com.subBike.server.entity.id.PredictVectorID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.List;
+
+/**
+ * 预测小时向量，按主键 (date, station) 读取
+ */
+@Repository
+public interface PredictVectorMapper extends JpaRepository<PredictVector, PredictVectorID> {
+
+    @Query(value = "SELECT DISTINCT p.date FROM predict p " +
+            "WHERE NOT EXISTS (SELECT 1 FROM predict_vector v WHERE v.date = p.date)", nativeQuery = true)
+    List<Date> findDatesWithoutVectors();
+}
@@ -19,6 +19,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.subBike.server.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtils jwtUtils;
@@ -26,6 +28,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private JwtUserCache userCache;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -33,10 +38,8 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = jwt != null ? loadUser(jwt) : null;
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null,
                         userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -50,6 +53,23 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 先查缓存；未命中时校验令牌（只解析一次）并查库，结果缓存到令牌过期
+     */
+    private UserDetails loadUser(String jwt) {
+        UserDetails userDetails = userCache.get(jwt);
+        if (userDetails != null) {
+            return userDetails;
+        }
+        Claims claims = jwtUtils.parseClaims(jwt);
+        if (claims == null) {
+            return null;
+        }
+        userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        userCache.put(jwt, userDetails, claims.getExpiration());
+        return userDetails;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
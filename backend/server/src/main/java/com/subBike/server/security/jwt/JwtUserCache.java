@@ -0,0 +1,80 @@
+package com.subBike.server.security.jwt;
+
+import java.time.Duration;
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * 已校验令牌 → UserDetails 的缓存，命中时 AuthTokenFilter 不再解析令牌、不再查库
+ *
+ * 每个条目在令牌过期时失效，且最长不超过 ttl（其它实例修改了角色时，本实例最多延迟 ttl 生效）；
+ * 本实例修改角色、删除用户、修改用户信息后调用 invalidateUser 立即失效。
+ */
+@Component
+public class JwtUserCache {
+
+  private static final class Entry {
+    final UserDetails userDetails;
+    final long expiresAtMillis;
+
+    Entry(UserDetails userDetails, long expiresAtMillis) {
+      this.userDetails = userDetails;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+
+  private final Cache<String, Entry> cache;
+
+  public JwtUserCache(@Value("${spring.jwt.user-cache.maximum-size:10000}") long maximumSize,
+      @Value("${spring.jwt.user-cache.ttl:5m}") Duration ttl) {
+    long ttlNanos = ttl.toNanos();
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new Expiry<String, Entry>() {
+          @Override
+          public long expireAfterCreate(String token, Entry entry, long currentTime) {
+            long untilExpiry = Duration.ofMillis(entry.expiresAtMillis - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(ttlNanos, untilExpiry));
+          }
+
+          @Override
+          public long expireAfterUpdate(String token, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, entry, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(String token, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+  }
+
+  /**
+   * @return 未缓存或已过期时返回 null
+   */
+  public UserDetails get(String token) {
+    Entry entry = cache.getIfPresent(token);
+    return entry == null ? null : entry.userDetails;
+  }
+
+  public void put(String token, UserDetails userDetails, Date expiration) {
+    if (expiration != null) {
+      cache.put(token, new Entry(userDetails, expiration.getTime()));
+    }
+  }
+
+  /**
+   * 失效该用户的所有令牌（角色变更、删除、资料修改后调用）
+   */
+  public void invalidateUser(String username) {
+    cache.asMap().values().removeIf(entry -> entry.userDetails.getUsername().equals(username));
+  }
+}
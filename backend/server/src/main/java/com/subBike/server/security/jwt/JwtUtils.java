@@ -1,8 +1,9 @@
 package com.subBike.server.security.jwt;
 
-import java.security.Key;
 import java.util.Date;
 
+import javax.crypto.SecretKey;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,6 +15,8 @@ import com.subBike.server.security.services.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtUtils {
@@ -25,41 +28,56 @@ public class JwtUtils {
   @Value("${spring.jwt.expirationMs}")
   private int jwtExpirationMs;
 
+  // 密钥与解析器只构建一次，JwtParser 线程安全
+  private SecretKey key;
+  private JwtParser parser;
+
+  @PostConstruct
+  public void init() {
+    key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    parser = Jwts.parser().verifyWith(key).build();
+  }
+
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
     return Jwts.builder()
-        .setSubject((userPrincipal.getUsername()))
-        .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(key(), SignatureAlgorithm.HS256)
+        .subject((userPrincipal.getUsername()))
+        .issuedAt(new Date())
+        .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
+        .signWith(key, Jwts.SIG.HS256)
         .compact();
   }
-  
-  private Key key() {
-    return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-  }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(key()).build()
-               .parseClaimsJws(token).getBody().getSubject();
+    return parser.parseSignedClaims(token).getPayload().getSubject();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return parseClaims(authToken) != null;
+  }
+
+  /**
+   * 校验签名与有效期并返回声明，只解析一次
+   *
+   * @return 令牌无效时返回 null
+   */
+  public Claims parseClaims(String authToken) {
     try {
-      Jwts.parser().setSigningKey(key()).build().parse(authToken);
-      return true;
+      return parser.parseSignedClaims(authToken).getPayload();
     } catch (MalformedJwtException e) {
       logger.error("Invalid JWT token: {}", e.getMessage());
     } catch (ExpiredJwtException e) {
       logger.error("JWT token is expired: {}", e.getMessage());
     } catch (UnsupportedJwtException e) {
       logger.error("JWT token is unsupported: {}", e.getMessage());
+    } catch (SignatureException e) {
+      logger.error("Invalid JWT signature: {}", e.getMessage());
     } catch (IllegalArgumentException e) {
       logger.error("JWT claims string is empty: {}", e.getMessage());
     }
 
-    return false;
+    return null;
   }
-} 
\ No newline at end of file
+}
@@ -1,30 +1,64 @@
 package com.subBike.server.service;
 
+import com.subBike.server.cache.FlowCacheInvalidator;
 import com.subBike.server.entity.dto.*;
 import com.subBike.server.mapper.BikeAmountMapper;
-import com.subBike.server.mapper.SubAmountMapper;
+import com.subBike.server.service.store.BikeHistoryIndex;
+import com.subBike.server.util.FlowDates;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 
 @Service
+@Transactional(readOnly = true)
+@CacheConfig(cacheNames = FlowCacheInvalidator.BIKE, keyGenerator = "flowCacheKeyGenerator")
 public class BikeAmountService implements IBikeAmountService {
+    private static final int TOP_N = 10;
+
     @Autowired
     BikeAmountMapper bikeAmountmapper;
+    @Autowired
+    StationDictionary stationDictionary;
+    @Autowired
+    BikeHistoryIndex bikeHistoryIndex;
     @Override
+    @Cacheable
     public List<StationBikeDto> findByDate(Date date){
-        return bikeAmountmapper.findByDate(date);
+        LocalDate day = FlowDates.toLocalDate(date);
+        return bikeHistoryIndex.top(day, day, TOP_N);
     }
     @Override
+    @Cacheable
     public List<StationBikeDto> findTotal(Date date){
         return bikeAmountmapper.findTotal(date);
     }
     @Override
+    @Cacheable
     public List<DateBikeDto> findByStation(String station){
-        return bikeAmountmapper.findByStation(station);
+        Long stationId = stationDictionary.idOf(station);
+        if (stationId == null) {
+            return new ArrayList<>();
+        }
+        return bikeAmountmapper.findByStation(stationId);
+    }
+
+    @Override
+    public List<StationBikeDto> findTop(LocalDate from, LocalDate to, int k) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("日期范围无效: " + from + " ~ " + to);
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k 必须为正整数: " + k);
+        }
+        return bikeHistoryIndex.top(from, to, k);
     }
 
 
@@ -1,21 +1,51 @@
 package com.subBike.server.service;
 
+import com.subBike.server.entity.dto.StationRebalanceDto;
 import com.subBike.server.mapper.BikeReqMapper;
+import com.subBike.server.service.store.BikeHistoryIndex;
+import com.subBike.server.util.FlowDates;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+
 @Service
 public class BikeReqService implements IBikeReqService {
     @Autowired
     BikeReqMapper bikeReqMapper;
+    // 每站点的历史前缀和，当天数量和此前平均值都从内存取
+    @Autowired
+    BikeHistoryIndex bikeHistoryIndex;
     @Override
     public Long getCount(Date date, String station){
+        long[] values = bikeHistoryIndex.lookup(station, FlowDates.toLocalDate(date));
+        if (values == null || values[2] == 0) {
+            throw new IllegalArgumentException("站点 " + station + " 在该日期或之前没有单车数据");
+        }
+        return expected(values) - values[0];
+    }
 
-        Long bikes= bikeReqMapper.get_num(date,station);
-        Long pre_bikes= Math.round(bikeReqMapper.get_avg(date,station));
+    @Override
+    public List<StationRebalanceDto> getSnapshot(Date date) {
+        List<StationRebalanceDto> list = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : bikeHistoryIndex.lookupAll(FlowDates.toLocalDate(date)).entrySet()) {
+            long[] values = entry.getValue();
+            // 没有更早数据的站点无法给出平均值，与单站点接口一致不返回
+            if (values[2] == 0) {
+                continue;
+            }
+            long expected = expected(values);
+            list.add(new StationRebalanceDto(entry.getKey(), values[0], expected, expected - values[0]));
+        }
+        // 缺口大的站点排在前面
+        list.sort((a, b) -> Long.compare(b.getGap(), a.getGap()));
+        return list;
+    }
 
-        return pre_bikes-bikes;
+    private static long expected(long[] values) {
+        return Math.round((double) values[1] / values[2]);
     }
 }
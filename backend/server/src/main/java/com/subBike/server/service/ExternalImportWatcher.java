@@ -0,0 +1,93 @@
+package com.subBike.server.service;
+
+import com.subBike.server.cache.FlowCacheInvalidator;
+import com.subBike.server.entity.ImportManifestEntry;
+import com.subBike.server.event.FlowDataChangedEvent;
+import com.subBike.server.service.store.StationFlowStore;
+import com.subBike.server.util.StationFlowCsvParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 发现独立运行的 CsvImportApplication 完成的导入
+ *
+ * CLI 不在本进程内，无法发布 FlowDataChangedEvent；它在每个文件全部写入后把 import_manifest
+ * 中对应行标记为 DONE（汇总表已重算之后）。这里定时查出上次之后新完成的文件，按文件名中的日期
+ * 刷新内存副本并失效查询缓存（含 Redis 二级缓存，并通知其他实例）。
+ * 每个实例各自轮询，多实例部署、未启用 Redis 时都能刷新。
+ */
+@Component
+public class ExternalImportWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ExternalImportWatcher.class);
+
+    private static final String DONE = ImportManifestEntry.Status.DONE.name();
+    private static final String LAST_DONE_SQL =
+            "SELECT MAX(updated_at) FROM import_manifest WHERE status = ?";
+    private static final String DONE_SINCE_SQL =
+            "SELECT file_name, updated_at FROM import_manifest WHERE status = ? AND updated_at > ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StationFlowStore stationFlowStore;
+
+    @Autowired
+    private FlowCacheInvalidator cacheInvalidator;
+
+    // 已处理到的完成时间（数据库时间，不受本机时钟影响）；null 表示还没有读到过
+    private volatile Timestamp since;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        // 启动前完成的导入已包含在首次加载里
+        try {
+            since = jdbcTemplate.queryForObject(LAST_DONE_SQL, Timestamp.class, DONE);
+        } catch (DataAccessException e) {
+            logger.warn("Reading import_manifest failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${subway.store.import-watch-interval:PT1M}",
+            initialDelayString = "${subway.store.import-watch-interval:PT1M}")
+    public synchronized void poll() {
+        Set<LocalDate> dates = new TreeSet<>();
+        Timestamp[] latest = {since};
+        try {
+            jdbcTemplate.query(DONE_SINCE_SQL, rs -> {
+                String fileName = rs.getString(1);
+                Timestamp updated = rs.getTimestamp(2);
+                if (latest[0] == null || updated.after(latest[0])) {
+                    latest[0] = updated;
+                }
+                if (StationFlowCsvParser.isStationFlowFile(fileName)) {
+                    dates.add(StationFlowCsvParser.dateOf(fileName));
+                }
+            }, DONE, since == null ? new Timestamp(0) : since);
+        } catch (DataAccessException e) {
+            logger.warn("Polling import_manifest failed: {}", e.getMessage());
+            return;
+        }
+        since = latest[0];
+        if (dates.isEmpty()) {
+            return;
+        }
+        for (LocalDate date : dates) {
+            stationFlowStore.reloadDay(date);
+        }
+        cacheInvalidator.evictDates(FlowDataChangedEvent.Dataset.SUBWAY, dates);
+        logger.info("Refreshed {} days imported by CsvImportApplication: {}", dates.size(), dates);
+    }
+}
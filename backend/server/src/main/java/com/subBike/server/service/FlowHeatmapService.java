@@ -0,0 +1,133 @@
+package com.subBike.server.service;
+
+import com.subBike.server.entity.dto.FlowHeatmap;
+import com.subBike.server.entity.dto.FlowMetric;
+import com.subBike.server.service.store.DayColumns;
+import com.subBike.server.service.store.StationFlowStore;
+import com.subBike.server.stream.LiveFlowWindows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 日期范围内的站点 × 小时客流矩阵（/api/subway/heatmap）
+ *
+ * 在 StationFlowStore 上计算：日期范围按天切分成 fork-join 任务，每个叶子任务把若干天
+ * 累加到自己的 int[站点][24] 中，合并时逐格相加。尚未落库的实时窗口最后叠加上去。
+ */
+@Service
+public class FlowHeatmapService {
+    // 叶子任务最多处理的天数；单日约 300 站 × 24 小时，几天一组足以摊薄拆分开销
+    private static final int DAYS_PER_TASK = 4;
+
+    @Autowired
+    StationFlowStore store;
+    @Autowired
+    LiveFlowWindows liveFlowWindows;
+
+    public FlowHeatmap getHeatmap(LocalDate from, LocalDate to, FlowMetric metric) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("日期范围无效: " + from + " ~ " + to);
+        }
+        Map<String, int[]> rows = store.read(view -> {
+            List<DayColumns> days = new ArrayList<>();
+            for (LocalDate day : view.days().subSet(from, true, to, true)) {
+                days.add(view.day(day));
+            }
+            int stationCount = view.stationCount();
+            Partial total = days.isEmpty() ? new Partial(stationCount)
+                    : ForkJoinPool.commonPool().invoke(new DayRangeTask(days, 0, days.size(), stationCount, metric));
+            // 按站点序号输出，范围内没有任何数据的站点不出现
+            Map<String, int[]> result = new LinkedHashMap<>();
+            for (int s = 0; s < stationCount; s++) {
+                if (total.present[s]) {
+                    result.put(view.station(s), total.values[s]);
+                }
+            }
+            return result;
+        });
+        liveFlowWindows.forEachCell(from, to, (station, hour, in, out) -> {
+            int[] row = rows.computeIfAbsent(station, s -> new int[FlowHeatmap.HOURS]);
+            row[hour] += (int) metric.value(in, out);
+        });
+        return new FlowHeatmap(from, to, metric, new ArrayList<>(rows.keySet()), rows.values().toArray(new int[0][]));
+    }
+
+    /**
+     * 一段日期的累加结果
+     */
+    private static final class Partial {
+        final int[][] values;
+        final boolean[] present;
+
+        Partial(int stations) {
+            values = new int[stations][FlowHeatmap.HOURS];
+            present = new boolean[stations];
+        }
+
+        void merge(Partial other) {
+            for (int s = 0; s < values.length; s++) {
+                if (!other.present[s]) {
+                    continue;
+                }
+                present[s] = true;
+                int[] target = values[s];
+                int[] source = other.values[s];
+                for (int h = 0; h < FlowHeatmap.HOURS; h++) {
+                    target[h] += source[h];
+                }
+            }
+        }
+    }
+
+    private static final class DayRangeTask extends RecursiveTask<Partial> {
+        private final List<DayColumns> days;
+        private final int lo;
+        private final int hi;
+        private final int stations;
+        private final FlowMetric metric;
+
+        DayRangeTask(List<DayColumns> days, int lo, int hi, int stations, FlowMetric metric) {
+            this.days = days;
+            this.lo = lo;
+            this.hi = hi;
+            this.stations = stations;
+            this.metric = metric;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (hi - lo <= DAYS_PER_TASK) {
+                Partial partial = new Partial(stations);
+                for (int d = lo; d < hi; d++) {
+                    accumulate(days.get(d), partial);
+                }
+                return partial;
+            }
+            int mid = (lo + hi) >>> 1;
+            DayRangeTask left = new DayRangeTask(days, lo, mid, stations, metric);
+            left.fork();
+            Partial right = new DayRangeTask(days, mid, hi, stations, metric).compute();
+            Partial result = left.join();
+            result.merge(right);
+            return result;
+        }
+
+        private void accumulate(DayColumns day, Partial partial) {
+            for (int s = 0; s < stations; s++) {
+                if (!day.hasStation(s)) {
+                    continue;
+                }
+                partial.present[s] = true;
+                int[] row = partial.values[s];
+                for (int h = 0; h < FlowHeatmap.HOURS; h++) {
+                    row[h] += (int) metric.value(day.in(s, h), day.out(s, h));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.subBike.server.service;
+
+import com.subBike.server.entity.dto.FlowRangeSum;
+import com.subBike.server.service.store.FlowPrefixCube;
+import com.subBike.server.service.store.StationFlowStore;
+import com.subBike.server.stream.LiveFlowWindows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 任意日期区间 × 小时区间 × 站点集合的客流合计（/api/subway/range）
+ *
+ * 落库部分查 FlowPrefixCube，每个站点 4 次查表；尚未落库的实时窗口最后叠加上去。
+ */
+@Service
+public class FlowRangeService {
+    @Autowired
+    StationFlowStore store;
+    @Autowired
+    FlowPrefixCube cube;
+    @Autowired
+    LiveFlowWindows liveFlowWindows;
+
+    /**
+     * @param stations 站点列表，按给定顺序返回（未知站点为 0）；为空时返回全部站点
+     */
+    public FlowRangeSum getRangeSum(LocalDate from, LocalDate to, int hourFrom, int hourTo, List<String> stations) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("日期范围无效: " + from + " ~ " + to);
+        }
+        if (hourFrom < 0 || hourTo >= StationFlowStore.HOURS || hourTo < hourFrom) {
+            throw new IllegalArgumentException("小时范围无效: " + hourFrom + " ~ " + hourTo);
+        }
+        boolean all = stations == null || stations.isEmpty();
+        List<String> names = new ArrayList<>();
+        long[][] sums = store.read(view -> {
+            int[] ordinals;
+            if (all) {
+                ordinals = new int[view.stationCount()];
+                for (int s = 0; s < ordinals.length; s++) {
+                    ordinals[s] = s;
+                    names.add(view.station(s));
+                }
+            } else {
+                ordinals = new int[stations.size()];
+                for (int i = 0; i < ordinals.length; i++) {
+                    ordinals[i] = view.ordinal(stations.get(i));
+                    names.add(stations.get(i));
+                }
+            }
+            long[] in = new long[ordinals.length];
+            long[] out = new long[ordinals.length];
+            cube.sum(view, from, to, hourFrom, hourTo, ordinals, in, out);
+            return new long[][]{in, out};
+        });
+        long[] in = sums[0];
+        long[] out = sums[1];
+
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            index.putIfAbsent(names.get(i), i);
+        }
+        List<long[]> extra = new ArrayList<>();
+        liveFlowWindows.forEachCell(from, to, (station, hour, cellIn, cellOut) -> {
+            if (hour < hourFrom || hour > hourTo) {
+                return;
+            }
+            Integer i = index.get(station);
+            if (i == null) {
+                // 只在实时窗口里出现过的新站点
+                if (!all) {
+                    return;
+                }
+                i = names.size() + extra.size();
+                index.put(station, i);
+                names.add(station);
+                extra.add(new long[2]);
+            }
+            if (i < in.length) {
+                in[i] += cellIn;
+                out[i] += cellOut;
+            } else {
+                long[] cell = extra.get(i - in.length);
+                cell[0] += cellIn;
+                cell[1] += cellOut;
+            }
+        });
+        if (extra.isEmpty()) {
+            return new FlowRangeSum(from, to, hourFrom, hourTo, names, in, out);
+        }
+        long[] allIn = Arrays.copyOf(in, names.size());
+        long[] allOut = Arrays.copyOf(out, names.size());
+        for (int i = 0; i < extra.size(); i++) {
+            allIn[in.length + i] = extra.get(i)[0];
+            allOut[in.length + i] = extra.get(i)[1];
+        }
+        return new FlowRangeSum(from, to, hourFrom, hourTo, names, allIn, allOut);
+    }
+}
@@ -0,0 +1,66 @@
+package com.subBike.server.service;
+
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.entity.dto.FlowMetric;
+import com.subBike.server.service.store.StationFlowStore;
+import com.subBike.server.service.store.StationRanking;
+import com.subBike.server.stream.LiveFlowWindows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 站点客流排行（/api/subway/top），单日排行 /date 也由这里给出
+ *
+ * 落库部分由 StationRanking 合并每天的排行得到；区间与尚未落库的实时窗口重叠时，
+ * 叠加后名次可能变化，改为取区间内全部站点叠加后重新排序。
+ */
+@Service
+public class FlowRankingService {
+    @Autowired
+    StationFlowStore store;
+    @Autowired
+    StationRanking ranking;
+    @Autowired
+    LiveFlowWindows liveFlowWindows;
+
+    public List<AmountDto> top(LocalDate from, LocalDate to, FlowMetric metric, int k) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("日期范围无效: " + from + " ~ " + to);
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k 必须为正整数: " + k);
+        }
+        Map<String, long[]> live = new LinkedHashMap<>();
+        liveFlowWindows.forEachCell(from, to, (station, hour, in, out) -> {
+            long[] totals = live.computeIfAbsent(station, s -> new long[2]);
+            totals[0] += in;
+            totals[1] += out;
+        });
+        List<AmountDto> list = store.read(view -> {
+            // 超过站点数的 k 按站点数取
+            int limit = live.isEmpty() ? Math.min(k, Math.max(view.stationCount(), 1)) : Math.max(view.stationCount(), 1);
+            List<AmountDto> rows = new ArrayList<>();
+            for (StationRanking.Entry entry : ranking.top(view, from, to, metric, limit)) {
+                rows.add(new AmountDto(view.station(entry.getStation()), entry.getIn(), entry.getOut()));
+            }
+            return rows;
+        });
+        if (live.isEmpty()) {
+            return list;
+        }
+        for (AmountDto dto : list) {
+            long[] totals = live.remove(dto.getStation());
+            if (totals != null) {
+                dto.setInNum(dto.getInNum() + totals[0]);
+                dto.setOutNum(dto.getOutNum() + totals[1]);
+            }
+        }
+        live.forEach((station, totals) -> list.add(new AmountDto(station, totals[0], totals[1])));
+        // 稳定排序，并列时保持站点序号顺序
+        list.sort((a, b) -> Long.compare(metric.value(b), metric.value(a)));
+        return list.size() > k ? new ArrayList<>(list.subList(0, k)) : list;
+    }
+}
@@ -0,0 +1,114 @@
+package com.subBike.server.service;
+
+import com.subBike.server.event.FlowDataChangedEvent;
+import com.subBike.server.mapper.FlowRollupMapper;
+import com.subBike.server.service.store.FlowArchive;
+import com.subBike.server.util.FlowDates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 维护汇总表 station_daily_flow / daily_flow / hourly_flow（同时为新导入的行分配 station_id）
+ *
+ * subAmount 某些日期写入后（FlowDataChangedEvent）只重算这些日期；
+ * 先于缓存失效执行，避免失效后的查询又把旧的汇总结果放回缓存。
+ * 已归档（FlowArchive）且库中已没有明细的日期不重算，汇总表保持归档前的结果。
+ */
+@Service
+public class FlowRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(FlowRollupService.class);
+
+    @Autowired
+    private FlowRollupMapper flowRollupMapper;
+
+    @Autowired
+    private FlowArchive flowArchive;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 启动时汇总表为空则从 subAmount 全量回填
+    @Value("${subway.rollup.backfill:true}")
+    private boolean backfill;
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void onDataChanged(FlowDataChangedEvent event) {
+        if (event.getDataset() == FlowDataChangedEvent.Dataset.SUBWAY) {
+            rebuild(event.getDates());
+        }
+    }
+
+    /**
+     * 不加 @Transactional：每天单独一个事务提交，某天失败只回滚这一天；
+     * 外层事务会被失败的调用标记为只能回滚，提交时抛出 UnexpectedRollbackException 中断启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfill) {
+            return;
+        }
+        try {
+            if (flowRollupMapper.count() > 0) {
+                return;
+            }
+            List<Date> dates = flowRollupMapper.findSourceDates();
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            int failed = 0;
+            for (Date date : dates) {
+                // 汇总表非空后不会再回填，单日失败继续处理其余日期
+                try {
+                    transaction.executeWithoutResult(status -> rebuildDay(date));
+                } catch (RuntimeException e) {
+                    failed++;
+                    logger.warn("Flow rollup backfill failed for {}: {}", date, e.getMessage());
+                }
+            }
+            logger.info("Backfilled flow rollups for {} days ({} failed)", dates.size() - failed, failed);
+        } catch (RuntimeException e) {
+            logger.warn("Flow rollup backfill failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按日期重算汇总表
+     */
+    @Transactional
+    public void rebuild(Collection<LocalDate> dates) {
+        for (LocalDate date : dates) {
+            Date sqlDate = FlowDates.toSqlDate(date);
+            if (flowArchive.contains(date) && flowRollupMapper.countSourceRows(sqlDate) == 0) {
+                continue;
+            }
+            rebuildDay(sqlDate);
+        }
+        logger.debug("Rebuilt flow rollups for {}", dates);
+    }
+
+    private void rebuildDay(Date date) {
+        flowRollupMapper.insertMissingStations(date);
+        flowRollupMapper.assignStationIds(date);
+        flowRollupMapper.deleteStationDaily(date);
+        flowRollupMapper.insertStationDaily(date);
+        flowRollupMapper.deleteDaily(date);
+        flowRollupMapper.insertDaily(date);
+        flowRollupMapper.deleteHourly(date);
+        flowRollupMapper.insertHourly(date);
+    }
+}
@@ -2,6 +2,7 @@ package com.subBike.server.service;
 
 import com.subBike.server.entity.dto.*;
 
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
 
@@ -11,5 +12,7 @@ public interface IBikeAmountService {
     public List<StationBikeDto> findTotal(Date date);
     public List<DateBikeDto> findByStation(String station);
 
+    public List<StationBikeDto> findTop(LocalDate from, LocalDate to, int k);
+
 
 }
@@ -1,6 +1,7 @@
 package com.subBike.server.service;
 
 import com.subBike.server.entity.dto.DateBikeDto;
+import com.subBike.server.entity.dto.StationRebalanceDto;
 import com.subBike.server.entity.dto.StationBikeDto;
 
 import java.util.Date;
@@ -12,6 +13,11 @@ import java.util.List;
 public interface IBikeReqService  {
     public Long getCount(Date date,String station);
 
+    /**
+     * 某天所有站点的单车缺口，一次算出（按缺口从大到小）
+     */
+    public List<StationRebalanceDto> getSnapshot(Date date);
+
 
 
 }
@@ -0,0 +1,144 @@
+package com.subBike.server.service;
+
+import com.subBike.server.cache.FlowCacheInvalidator;
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.entity.dto.DateAmountDto;
+import com.subBike.server.entity.dto.FlowMetric;
+import com.subBike.server.entity.dto.TimeAmountDto;
+import com.subBike.server.entity.dto.TimeSlotDto;
+import com.subBike.server.service.store.DayColumns;
+import com.subBike.server.service.store.StationFlowStore;
+import com.subBike.server.stream.LiveFlowWindows;
+import com.subBike.server.util.FlowDates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 基于 StationFlowStore 的内存实现，结果与 SubAmountMapper 中对应 JPQL 的结果一致：
+ * 只有在 subAmount 中存在行的站点/日期/小时才会出现在结果里。
+ * 没有 ORDER BY 的查询（getMap）按站点序号输出。
+ *
+ * 配置 subway.store.engine=memory 时启用，替换默认的 SubAmountService。
+ */
+@Service
+@Transactional(readOnly = true)
+@Primary
+@ConditionalOnProperty(name = "subway.store.engine", havingValue = "memory")
+public class MemorySubAmountService implements ISubAmountService {
+    private static final int TOP_N = 10;
+
+    @Autowired
+    StationFlowStore store;
+    @Autowired
+    LiveFlowWindows liveFlowWindows;
+    @Autowired
+    MetroDataService metroDataService;
+    @Autowired
+    FlowRankingService rankingService;
+
+    @Override
+    public List<AmountDto> findByDate(Date date) {
+        LocalDate day = FlowDates.toLocalDate(date);
+        return rankingService.top(day, day, FlowMetric.TOTAL, TOP_N);
+    }
+
+    @Override
+    public List<DateAmountDto> findTotal() {
+        return store.read(view -> {
+            List<DateAmountDto> list = new ArrayList<>(view.days().size());
+            for (LocalDate day : view.days()) {
+                DayColumns columns = view.day(day);
+                long in = 0L;
+                long out = 0L;
+                for (int s = 0; s < view.stationCount(); s++) {
+                    in += columns.inTotal(s);
+                    out += columns.outTotal(s);
+                }
+                list.add(new DateAmountDto(FlowDates.toSqlDate(day), in, out));
+            }
+            return liveFlowWindows.overlayDays(list, null, null, null);
+        });
+    }
+
+    @Override
+    public List<DateAmountDto> getWeeklyTotals(String station, Date endDate) {
+        LocalDate end = FlowDates.toLocalDate(endDate);
+        LocalDate start = end.minusDays(6);
+        return store.read(view -> {
+            List<DateAmountDto> list = new ArrayList<>();
+            int ordinal = view.ordinal(station);
+            if (ordinal >= 0) {
+                for (LocalDate day : view.days().subSet(start, true, end, true)) {
+                    DayColumns columns = view.day(day);
+                    if (columns.hasStation(ordinal)) {
+                        list.add(new DateAmountDto(FlowDates.toSqlDate(day),
+                                columns.inTotal(ordinal), columns.outTotal(ordinal)));
+                    }
+                }
+            }
+            return liveFlowWindows.overlayDays(list, station, FlowDates.toSqlDate(start), endDate);
+        });
+    }
+
+    @Override
+    public List<AmountDto> getMap(Date date) {
+        LocalDate day = FlowDates.toLocalDate(date);
+        return store.read(view -> {
+            DayColumns columns = view.day(day);
+            return liveFlowWindows.overlayStations(date,
+                    columns == null ? new ArrayList<>() : stationTotals(view, columns));
+        });
+    }
+
+    @Override
+    public List<TimeAmountDto> getTrend(Date date) {
+        LocalDate day = FlowDates.toLocalDate(date);
+        return store.read(view -> {
+            List<TimeAmountDto> list = new ArrayList<>(StationFlowStore.HOURS);
+            DayColumns columns = view.day(day);
+            if (columns == null) {
+                return liveFlowWindows.overlayHours(date, list);
+            }
+            for (int h = 0; h < StationFlowStore.HOURS; h++) {
+                long in = 0L;
+                long out = 0L;
+                boolean present = false;
+                for (int s = 0; s < view.stationCount(); s++) {
+                    if (columns.present(s, h)) {
+                        present = true;
+                        in += columns.in(s, h);
+                        out += columns.out(s, h);
+                    }
+                }
+                if (present) {
+                    list.add(new TimeAmountDto(h, in, out));
+                }
+            }
+            return liveFlowWindows.overlayHours(date, list);
+        });
+    }
+
+    @Override
+    @Cacheable(cacheNames = FlowCacheInvalidator.PREDICT, keyGenerator = "flowCacheKeyGenerator")
+    public List<TimeSlotDto> getpredict(LocalDate date, String station) {
+        // 写入预测时已按小时汇总好，按 (date, station) 主键读取
+        return metroDataService.getHourlyPredictions(date, station);
+    }
+
+    private static List<AmountDto> stationTotals(StationFlowStore.View view, DayColumns columns) {
+        List<AmountDto> list = new ArrayList<>();
+        for (int s = 0; s < view.stationCount(); s++) {
+            if (columns.hasStation(s)) {
+                list.add(new AmountDto(view.station(s), columns.inTotal(s), columns.outTotal(s)));
+            }
+        }
+        return list;
+    }
+}
@@ -1,77 +1,297 @@
-//package com.subBike.server.service;
-//
-//import com.subBike.server.entity.MetroHistoricalData;
-//import com.subBike.server.mapper.HistoricalMapper;
-//
-//import java.time.LocalDate;
-//import java.util.List;
-//import java.util.Map;
-//import java.util.Random;
-//import java.util.stream.Collectors;
-//
-//// 2. 数据获取服务类
-//public class MetroDataService {
-//    HistoricalMapper historicalMapper;
-//
-//    /**
-//     * 获取历史三天的地铁流量数据
-//     * @return [3天][24小时][特征数] 的数据
-//     */
-//    public float[][][] getHistoricalData() {
-//        // 计算日期范围：从昨天往回数3天
-//
-//        LocalDate endDate = LocalDate.now().minusDays(1);
-//        LocalDate startDate = endDate.minusDays(2);
-//
-//        // 从数据库查询历史数据
-//        List<MetroHistoricalData> rawData = historicalMapper.findByDateBetween(startDate, endDate);
-//
-//        // 初始化结果数组
-//        float[][][] data = new float[3][24][1]; // 3天，24小时，1个特征
-//
-//        // 按日期和小时分组数据
-//        Map<String, List<MetroHistoricalData>> groupedData = rawData.stream()
-//                .collect(Collectors.groupingBy(record ->
-//                        record.getDate().toString() + "_" + record.getTimeSlot().getHour()));
-//
-//        // 填充数据
-//        Random random = new Random();
-//        for (int day = 0; day < 3; day++) {
-//            LocalDate currentDate = startDate.plusDays(day);
-//
-//            for (int hour = 0; hour < 24; hour++) {
-//                String key = currentDate.toString() + "_" + hour;
-//                List<MetroHistoricalData> hourData = groupedData.get(key);
-//
-//                if (hourData != null && !hourData.isEmpty()) {
-//                    // 计算该小时所有站点的平均流量
-//                    double avgFlow = hourData.stream()
-//                            .mapToDouble(record -> record.getInCount() + record.getOutCount())
-//                            .average().orElse(0);
-//                    data[day][hour][0] = (float) avgFlow;
-//                } else {
-//                    // 缺失数据时使用模拟数据
-//                    if (hour >= 7 && hour <= 9 || hour >= 17 && hour <= 19) {
-//                        data[day][hour][0] = 800 + random.nextFloat() * 400; // 高峰期
-//                    } else {
-//                        data[day][hour][0] = 200 + random.nextFloat() * 300; // 平峰期
-//                    }
-//                }
-//            }
-//        }
-//        return data;
-//    }
-//    /**
-//     * 保存预测结果到数据库
-//     */
-//    public void savePredictions(float[][] predictions) {
-//        // 实际项目中保存到数据库
-//        System.out.println("保存预测结果:");
-//        for (int day = 0; day < predictions.length; day++) {
-//            System.out.println("第" + (day + 1) + "天预测:");
-//            for (int hour = 0; hour < predictions[day].length; hour++) {
-//                System.out.printf("  %02d:00 - %.2f人次\n", hour, predictions[day][hour]);
-//            }
-//        }
-//    }
-//}
\ No newline at end of file
+package com.subBike.server.service;
+
+import com.subBike.server.entity.PredictVector;
+import com.subBike.server.entity.dto.TimeSlotDto;
+import com.subBike.server.mapper.PredictVectorMapper;
+import com.subBike.server.service.store.LagFeatureStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * 预测数据准备与保存：从 metro_historical_data 构造特征，把结果写入 predict
+ *
+ * 特征与 pred/app/services/prediction.py 一致：每个（站点, 时段）一行，
+ * 滞后 1~6 天 × [in_count, out_count, temperature, humidity, wind_speed, minutes, day_of_week] 共 42 列，
+ * 缺失的滞后值用该列均值填充。
+ * 写入预测时同时生成每个（日期, 站点）的 24 小时向量 predict_vector，/api/subway/predict 按主键读取。
+ */
+@Service
+public class MetroDataService {
+    private static final Logger logger = LoggerFactory.getLogger(MetroDataService.class);
+
+    public static final int LAGS = 6;
+    public static final int BASE_FEATURES = 7;
+    public static final int FEATURES = LAGS * BASE_FEATURES;
+
+    private static final String DELETE_SQL = "DELETE FROM predict WHERE date = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO predict (date, station, district, time_slot, in_count_pred, outcount_pred) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int INSERT_BATCH = 1000;
+    private static final String PREDICTIONS_SQL =
+            "SELECT station, time_slot, in_count_pred, outcount_pred FROM predict WHERE date = ?";
+    private static final String STATION_PREDICTIONS_SQL =
+            "SELECT station, time_slot, in_count_pred, outcount_pred FROM predict WHERE date = ? AND station = ?";
+    private static final String DELETE_VECTORS_SQL = "DELETE FROM predict_vector WHERE date = ?";
+    private static final String VECTOR_SQL =
+            "SELECT hour_mask, in_pred, out_pred FROM predict_vector WHERE date = ? AND station = ?";
+    private static final String INSERT_VECTOR_SQL =
+            "INSERT INTO predict_vector (date, station, hour_mask, in_pred, out_pred) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LagFeatureStore featureStore;
+
+    @Autowired
+    private PredictVectorMapper predictVectorMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 启动时为还没有小时向量的预测日期补建
+    @Value("${subway.predict.vector-backfill:true}")
+    private boolean vectorBackfill;
+
+    /**
+     * 一天的预测输入：第 i 行对应 stations[i] / slots[i]，特征按行连续存放
+     */
+    public static class FeatureBatch {
+        private final LocalDate target;
+        private final List<String> stations = new ArrayList<>();
+        private final List<String> districts = new ArrayList<>();
+        private final List<LocalTime> slots = new ArrayList<>();
+        private float[] features = new float[FEATURES * 256];
+
+        public FeatureBatch(LocalDate target) {
+            this.target = target;
+        }
+
+        /**
+         * 追加一行，特征初始为 NaN（缺失）
+         */
+        public int addRow(String station, String district, LocalTime slot) {
+            int row = stations.size();
+            stations.add(station);
+            districts.add(district);
+            slots.add(slot);
+            if ((row + 1) * FEATURES > features.length) {
+                features = Arrays.copyOf(features, features.length * 2);
+            }
+            Arrays.fill(features, row * FEATURES, (row + 1) * FEATURES, Float.NaN);
+            return row;
+        }
+
+        public LocalDate getTarget() {
+            return target;
+        }
+
+        public int size() {
+            return stations.size();
+        }
+
+        /**
+         * 长度至少为 size() * FEATURES，多出的部分不使用
+         */
+        public float[] getFeatures() {
+            return features;
+        }
+
+        public String station(int row) {
+            return stations.get(row);
+        }
+
+        public String district(int row) {
+            return districts.get(row);
+        }
+
+        public LocalTime slot(int row) {
+            return slots.get(row);
+        }
+    }
+
+    /**
+     * 取 target 前 6 天的历史数据，构造 target 当天每个（站点, 时段）的特征
+     * 滞后值由 LagFeatureStore 增量维护，这里只做均值填充
+     */
+    public FeatureBatch getHistoricalData(LocalDate target) {
+        FeatureBatch batch = featureStore.batch(target);
+        fillMissingWithMean(batch.features, batch.size());
+        return batch;
+    }
+
+    /**
+     * 覆盖写入 target 当天的预测结果
+     */
+    @Transactional
+    public int savePredictions(FeatureBatch batch, float[] inPred, float[] outPred) {
+        Date date = Date.valueOf(batch.getTarget());
+        jdbcTemplate.update(DELETE_SQL, date);
+        int size = batch.size();
+        for (int from = 0; from < size; from += INSERT_BATCH) {
+            int offset = from;
+            int count = Math.min(INSERT_BATCH, size - from);
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int row = offset + i;
+                    ps.setDate(1, date);
+                    ps.setString(2, batch.station(row));
+                    ps.setString(3, batch.district(row));
+                    ps.setTime(4, Time.valueOf(batch.slot(row)));
+                    ps.setDouble(5, count(inPred[row]));
+                    ps.setDouble(6, count(outPred[row]));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return count;
+                }
+            });
+        }
+        HourlyVectors vectors = new HourlyVectors();
+        for (int row = 0; row < size; row++) {
+            vectors.add(batch.station(row), batch.slot(row), count(inPred[row]), count(outPred[row]));
+        }
+        saveVectors(date, vectors);
+        return size;
+    }
+
+    /**
+     * 某站点某天的小时预测（与 SubAmountMapper.getpredict 的按小时求和一致），按小时排序，time 为整点
+     */
+    public List<TimeSlotDto> getHourlyPredictions(LocalDate date, String station) {
+        // 主键查询，直接解码两列向量，不经过实体
+        List<List<TimeSlotDto>> found = jdbcTemplate.query(VECTOR_SQL,
+                (rs, i) -> PredictVector.toTimeSlots(rs.getInt(1), rs.getBytes(2), rs.getBytes(3)),
+                Date.valueOf(date), station);
+        if (!found.isEmpty()) {
+            return found.get(0);
+        }
+        return aggregatePredictions(Date.valueOf(date), station);
+    }
+
+    /**
+     * 向量缺失（外部脚本直接写入 predict、回填关闭或尚未跑完）时按小时汇总 predict 后返回；
+     * 调用方在只读事务（或只读副本）里，这里不补写向量，由回填和下次预测生成
+     */
+    private List<TimeSlotDto> aggregatePredictions(Date date, String station) {
+        HourlyVectors vectors = new HourlyVectors();
+        jdbcTemplate.query(STATION_PREDICTIONS_SQL, rs -> {
+            vectors.add(rs.getString(1), rs.getTime(2).toLocalTime(), rs.getDouble(3), rs.getDouble(4));
+        }, date, station);
+        HourlyVectors.Vector v = vectors.stations.get(station);
+        if (v == null) {
+            return new ArrayList<>();
+        }
+        return PredictVector.toTimeSlots(v.mask, PredictVector.pack(v.in), PredictVector.pack(v.out));
+    }
+
+    /**
+     * 不加 @Transactional：每天单独一个事务提交，某天失败只回滚这一天，其余日期继续
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVectorsOnStartup() {
+        if (!vectorBackfill) {
+            return;
+        }
+        try {
+            List<Date> dates = predictVectorMapper.findDatesWithoutVectors();
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            int failed = 0;
+            for (Date date : dates) {
+                try {
+                    transaction.executeWithoutResult(status -> {
+                        HourlyVectors vectors = new HourlyVectors();
+                        jdbcTemplate.query(PREDICTIONS_SQL, rs -> {
+                            vectors.add(rs.getString(1), rs.getTime(2).toLocalTime(), rs.getDouble(3), rs.getDouble(4));
+                        }, date);
+                        saveVectors(date, vectors);
+                    });
+                } catch (RuntimeException e) {
+                    failed++;
+                    logger.warn("Prediction vector backfill failed for {}: {}", date, e.getMessage());
+                }
+            }
+            if (!dates.isEmpty()) {
+                logger.info("Backfilled prediction vectors for {} days ({} failed)", dates.size() - failed, failed);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Prediction vector backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private void saveVectors(Date date, HourlyVectors vectors) {
+        jdbcTemplate.update(DELETE_VECTORS_SQL, date);
+        List<Object[]> args = new ArrayList<>(vectors.stations.size());
+        vectors.stations.forEach((station, v) -> args.add(new Object[]{date, station, v.mask,
+                PredictVector.pack(v.in), PredictVector.pack(v.out)}));
+        jdbcTemplate.batchUpdate(INSERT_VECTOR_SQL, args);
+    }
+
+    /**
+     * 按站点累加每小时的预测值
+     */
+    private static final class HourlyVectors {
+        final Map<String, Vector> stations = new LinkedHashMap<>();
+
+        void add(String station, LocalTime slot, double in, double out) {
+            Vector v = stations.computeIfAbsent(station, s -> new Vector());
+            int h = slot.getHour();
+            v.in[h] += in;
+            v.out[h] += out;
+            v.mask |= 1 << h;
+        }
+
+        static final class Vector {
+            final double[] in = new double[PredictVector.HOURS];
+            final double[] out = new double[PredictVector.HOURS];
+            int mask;
+        }
+    }
+
+    // 与 max(0, int(pred)) 一致
+    private static double count(float pred) {
+        return Math.max(0, (int) pred);
+    }
+
+    private static void fillMissingWithMean(float[] features, int rows) {
+        for (int c = 0; c < FEATURES; c++) {
+            double sum = 0;
+            int n = 0;
+            for (int r = 0; r < rows; r++) {
+                float v = features[r * FEATURES + c];
+                if (!Float.isNaN(v)) {
+                    sum += v;
+                    n++;
+                }
+            }
+            float mean = n == 0 ? 0f : (float) (sum / n);
+            for (int r = 0; r < rows; r++) {
+                int i = r * FEATURES + c;
+                if (Float.isNaN(features[i])) {
+                    features[i] = mean;
+                }
+            }
+        }
+    }
+}
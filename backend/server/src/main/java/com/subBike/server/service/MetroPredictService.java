@@ -1,154 +1,179 @@
-//package com.subBike.server.service;
-//// 1. 模型预测服务类 - ONNX版本
-//import ai.onnxruntime.*;
-//import java.util.*;
-//
-//public class MetroPredictService {
-//    private OrtEnvironment env;
-//    private OrtSession session;
-//
-//    public MetroPredictService() throws OrtException {
-////        // 初始化ONNX环境和加载模型
-////        this.env = OrtEnvironment.getEnvironment();
-////        this.session = env.createSession("metro_lstm.onnx", // 转换后的ONNX模型
-////                new OrtSession.SessionOptions());
-//
-//        // 打印模型信息，帮助调试
-//        printModelInfo();
-//    }
-//
-//    /**
-//     * 打印模型输入输出信息，帮助调试
-//     */
-//    private void printModelInfo() throws OrtException {
-//       System.out.println("=== 模型信息 ===");
-////
-////        // 输入信息
-////        System.out.println("输入节点:");
-////        for (String inputName : session.getInputNames()) {
-////            System.out.println("  输入名称: " + inputName);
-////            var inputInfo = session.getInputInfo().get(inputName);
-////            if (inputInfo != null) {
-////                System.out.println("  输入类型: " + inputInfo.getInfo());
-////            }
-////        }
-////
-////        // 输出信息
-////        System.out.println("输出节点:");
-////        for (String outputName : session.getOutputNames()) {
-////            System.out.println("  输出名称: " + outputName);
-////            var outputInfo = session.getOutputInfo().get(outputName);
-////            if (outputInfo != null) {
-////                System.out.println("  输出类型: " + outputInfo.getInfo());
-////            }
-////        }
-////        System.out.println("================");
-//    }
-//
-//    /**
-//     * 预测未来两天的地铁流量
-//     * @param historicalData 历史三天的流量数据 [天数, 时间点, 特征数]
-//     * @return 预测的两天流量数据
-//     */
-//    public float[][] predict(float[][][] historicalData) throws OrtException {
-//        // 构造输入张量 (batch_size=1, sequence_length=3, features)
-//        long[] inputShape = {1, 3, historicalData[0][0].length};
-//
-//        // 创建输入张量 - 最兼容的方式
-//        try {
-//            // 方法1：直接使用多维数组（推荐）
-//            float[][][] inputArray = reshapeToTensor(historicalData);
-//            OnnxTensor inputTensor = OnnxTensor.createTensor(env, inputArray);
-//
-//            // 构造输入映射 - 动态获取输入名称
-//            String inputName = session.getInputNames().iterator().next(); // 获取第一个输入名称
-//            Map<String, OnnxTensor> inputs = new HashMap<>();
-//            inputs.put(inputName, inputTensor);
-//
-//            // 执行推理
-//            OrtSession.Result results = session.run(inputs);
-//
-//            // 获取输出
-//            float[][] predictions = extractPredictions(results);
-//
-//            // 清理资源
-//            inputTensor.close();
-//            results.close();
-//
-//            return predictions;
-//
-//        } catch (Exception e) {
-//            // 如果上面方法失败，尝试备用方案
-//            System.err.println("使用备用张量创建方法: " + e.getMessage());
-//            return predictWithFallback(historicalData);
-//        }
-//    }
-//
-//    /**
-//     * 将输入数据重新整理为张量格式
-//     */
-//    private float[][][] reshapeToTensor(float[][][] historicalData) {
-//        // 输入形状: [batch_size=1, sequence_length=3, features]
-//        int batchSize = 1;
-//        int seqLength = historicalData.length; // 3天
-//        int features = historicalData[0][0].length; // 特征数
-//
-//        float[][][] tensor = new float[batchSize][seqLength][features];
-//
-//        for (int day = 0; day < seqLength; day++) {
-//            // 将每天24小时的数据聚合或选择代表性数据
-//            // 这里简化为取第一个小时的数据，实际应用中需要根据模型要求调整
-//            System.arraycopy(historicalData[day][0], 0, tensor[0][day], 0, features);
-//        }
-//
-//        return tensor;
-//    }
-//
-//    /**
-//     * 备用预测方法
-//     */
-//    private float[][] predictWithFallback(float[][][] historicalData) {
-//        // 返回模拟数据或抛出异常
-//        System.err.println("ONNX模型调用失败，返回模拟预测数据");
-//        float[][] mockPredictions = new float[2][24]; // 2天，24小时
-//        Random random = new Random();
-//
-//        for (int day = 0; day < 2; day++) {
-//            for (int hour = 0; hour < 24; hour++) {
-//                mockPredictions[day][hour] = 300 + random.nextFloat() * 200;
-//            }
-//        }
-//        return mockPredictions;
-//    }
-//
-//    private float[] flattenInput(float[][][] data) {
-//        List<Float> flattened = new ArrayList<>();
-//        for (int day = 0; day < data.length; day++) {
-//            for (int timePoint = 0; timePoint < data[day].length; timePoint++) {
-//                for (int feature = 0; feature < data[day][timePoint].length; feature++) {
-//                    flattened.add(data[day][timePoint][feature]);
-//                }
-//            }
-//        }
-//        float[] result = new float[flattened.size()];
-//        for (int i = 0; i < flattened.size(); i++) {
-//            result[i] = flattened.get(i);
-//        }
-//        return result;
-//    }
-//
-//    private float[][] extractPredictions(OrtSession.Result results) throws OrtException {
-//        // 获取第一个输出（假设只有一个输出）
-//        OnnxValue output = results.get(0);
-//        float[][][] result3D = (float[][][]) output.getValue();
-//
-//        // 返回2天的预测数据 [2天, 24小时]
-//        // 根据你的模型输出格式调整
-//        return new float[][]{result3D[0][0], result3D[0][1]};
-//    }
-//
-//    public void close() throws OrtException {
-//        if (session != null) session.close();
-//        if (env != null) env.close();
-//    }
-//}
+package com.subBike.server.service;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.subBike.server.event.FlowDataChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.FloatBuffer;
+import java.time.LocalDate;
+import java.util.Collections;
+
+/**
+ * ONNX 客流预测（进站 in_count_model.onnx / 出站 out_count_model.onnx）
+ *
+ * 两个模型在首次使用时各加载一次，OrtSession 线程安全，所有请求共用；
+ * 一天内所有（站点, 时段）拼成一个 [N, 42] 张量，每个模型只推理一次。
+ */
+@Service
+public class MetroPredictService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(MetroPredictService.class);
+
+    private static final String INPUT_NAME = "input";
+
+    @Autowired
+    private MetroDataService dataService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${subway.predict.in-model:file:../../pred/app/models/in_count_model.onnx}")
+    private Resource inModel;
+
+    @Value("${subway.predict.out-model:file:../../pred/app/models/out_count_model.onnx}")
+    private Resource outModel;
+
+    // 单次推理使用的线程数，0 表示由 onnxruntime 决定
+    @Value("${subway.predict.intra-op-threads:0}")
+    private int intraOpThreads;
+
+    private final OrtEnvironment env = OrtEnvironment.getEnvironment();
+    private volatile OrtSession inSession;
+    private volatile OrtSession outSession;
+
+    /**
+     * 一次预测的结果统计
+     */
+    public static class Result {
+        private final LocalDate date;
+        private final int rows;
+        private final long inferenceMillis;
+        private final long totalMillis;
+
+        Result(LocalDate date, int rows, long inferenceMillis, long totalMillis) {
+            this.date = date;
+            this.rows = rows;
+            this.inferenceMillis = inferenceMillis;
+            this.totalMillis = totalMillis;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public long getInferenceMillis() {
+            return inferenceMillis;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+    }
+
+    /**
+     * 预测 target 当天所有站点各时段的进出站人数并写入 predict 表
+     */
+    public Result predictDay(LocalDate target) throws OrtException, IOException {
+        long start = System.nanoTime();
+        MetroDataService.FeatureBatch batch = dataService.getHistoricalData(target);
+        if (batch.size() == 0) {
+            logger.warn("No history in the {} days before {}, skip prediction", MetroDataService.LAGS, target);
+            return new Result(target, 0, 0, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        long inferenceStart = System.nanoTime();
+        float[][] pred = predict(batch.getFeatures(), batch.size());
+        long inferenceMillis = (System.nanoTime() - inferenceStart) / 1_000_000;
+
+        int rows = dataService.savePredictions(batch, pred[0], pred[1]);
+        eventPublisher.publishEvent(new FlowDataChangedEvent(this, FlowDataChangedEvent.Dataset.PREDICT,
+                Collections.singleton(target)));
+        long totalMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Predicted {} rows for {} (inference {} ms, total {} ms)", rows, target, inferenceMillis, totalMillis);
+        return new Result(target, rows, inferenceMillis, totalMillis);
+    }
+
+    /**
+     * @param features 按行连续存放的特征，前 rows * 42 个有效
+     * @return [0] 进站预测，[1] 出站预测，长度均为 rows
+     */
+    public float[][] predict(float[] features, int rows) throws OrtException, IOException {
+        ensureLoaded();
+        long[] shape = {rows, MetroDataService.FEATURES};
+        try (OnnxTensor input = OnnxTensor.createTensor(env,
+                FloatBuffer.wrap(features, 0, rows * MetroDataService.FEATURES), shape)) {
+            return new float[][]{run(inSession, input, rows), run(outSession, input, rows)};
+        }
+    }
+
+    private float[] run(OrtSession session, OnnxTensor input, int rows) throws OrtException {
+        try (OrtSession.Result result = session.run(Collections.singletonMap(INPUT_NAME, input))) {
+            // 输出形状 [N, 1]
+            FloatBuffer output = ((OnnxTensor) result.get(0)).getFloatBuffer();
+            float[] values = new float[rows];
+            output.get(values);
+            return values;
+        }
+    }
+
+    private void ensureLoaded() throws OrtException, IOException {
+        if (inSession == null) {
+            synchronized (this) {
+                if (inSession == null) {
+                    // 会话创建后不再需要选项；in 模型加载失败时关闭已创建的 out 会话，下次调用重新加载
+                    try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+                        if (intraOpThreads > 0) {
+                            options.setIntraOpNumThreads(intraOpThreads);
+                        }
+                        OrtSession out = env.createSession(read(outModel), options);
+                        OrtSession in;
+                        try {
+                            in = env.createSession(read(inModel), options);
+                        } catch (OrtException | IOException | RuntimeException e) {
+                            try {
+                                out.close();
+                            } catch (OrtException closeFailure) {
+                                e.addSuppressed(closeFailure);
+                            }
+                            throw e;
+                        }
+                        outSession = out;
+                        inSession = in;
+                    }
+                    logger.info("Loaded prediction models {} and {}", inModel, outModel);
+                }
+            }
+        }
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Override
+    public void destroy() throws OrtException {
+        if (inSession != null) {
+            inSession.close();
+        }
+        if (outSession != null) {
+            outSession.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.subBike.server.service;
+
+import com.subBike.server.entity.Station;
+import com.subBike.server.event.FlowDataChangedEvent;
+import com.subBike.server.repository.StationRepository;
+import com.subBike.server.util.FlowDates;
+import com.subBike.server.util.FlowRollupSql;
+import com.subBike.server.util.StationIdSql;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 站名 ↔ stations.id 字典，按站点查询时把站名换成整数 id，走 (station_id, date) 索引
+ *
+ * 站点只增不改，已知站名常驻内存；未命中时查库，查不到不缓存（导入时可能由 SQL 新增）。
+ */
+@Service
+public class StationDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(StationDictionary.class);
+
+    @Autowired
+    private StationRepository stationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 启动时为 station_id 为空的历史数据分配 id
+    @Value("${subway.station-ids.backfill:true}")
+    private boolean backfill;
+
+    private final ConcurrentMap<String, Long> ids = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillOnStartup() {
+        if (!backfill) {
+            return;
+        }
+        try {
+            int rows = 0;
+            for (String sql : StationIdSql.BACKFILL) {
+                rows += jdbcTemplate.update(sql);
+            }
+            if (rows > 0) {
+                logger.info("Backfilled station ids, {} rows updated", rows);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Station id backfill failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 单车数据按日期写入后分配 station_id（地铁数据由 FlowRollupService 处理）
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDataChanged(FlowDataChangedEvent event) {
+        if (event.getDataset() != FlowDataChangedEvent.Dataset.BIKE) {
+            return;
+        }
+        for (LocalDate date : event.getDates()) {
+            java.sql.Date sqlDate = FlowDates.toSqlDate(date);
+            jdbcTemplate.update(FlowRollupSql.jdbc(StationIdSql.INSERT_MISSING_FROM_BIKE_AMOUNT_DAY), sqlDate);
+            jdbcTemplate.update(FlowRollupSql.jdbc(StationIdSql.ASSIGN_BIKE_AMOUNT_DAY), sqlDate);
+        }
+    }
+
+    /**
+     * @return 未登记的站名返回 null
+     */
+    public Long idOf(String name) {
+        if (name == null) {
+            return null;
+        }
+        ensureLoaded();
+        Long id = ids.get(name);
+        if (id == null) {
+            id = stationRepository.findByName(name).map(Station::getId).orElse(null);
+            if (id != null) {
+                ids.put(name, id);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * 取站名对应的 id，未登记则新增
+     */
+    public Long intern(String name) {
+        Long id = idOf(name);
+        if (id != null) {
+            return id;
+        }
+        try {
+            id = stationRepository.save(new Station(name)).getId();
+        } catch (DataIntegrityViolationException e) {
+            // 并发新增同名站点，唯一索引冲突后读取已存在的一行
+            id = stationRepository.findByName(name).map(Station::getId)
+                    .orElseThrow(() -> e);
+        }
+        ids.put(name, id);
+        return id;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    for (Station station : stationRepository.findAll()) {
+                        ids.put(station.getName(), station.getId());
+                    }
+                    loaded = true;
+                }
+            }
+        }
+    }
+}
@@ -1,57 +1,91 @@
 package com.subBike.server.service;
 
+import com.subBike.server.cache.DateKeyed;
+import com.subBike.server.cache.FlowCacheInvalidator;
 import com.subBike.server.entity.dto.AmountDto;
 import com.subBike.server.entity.dto.DateAmountDto;
 import com.subBike.server.entity.dto.TimeAmountDto;
 import com.subBike.server.entity.dto.TimeSlotDto;
-import com.subBike.server.mapper.SubAmountMapper;
+import com.subBike.server.mapper.FlowRollupMapper;
+import com.subBike.server.stream.LiveFlowWindows;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
 
 @Service
+@Transactional(readOnly = true)
+@CacheConfig(cacheNames = FlowCacheInvalidator.SUBWAY, keyGenerator = "flowCacheKeyGenerator")
 public class SubAmountService implements ISubAmountService{
+    // 日/站点/小时汇总由 FlowRollupService 在导入时维护
     @Autowired
-    SubAmountMapper subAmountmapper;
+    FlowRollupMapper flowRollupMapper;
+    @Autowired
+    StationDictionary stationDictionary;
+    // 实时接入中尚未落库的小时窗口，叠加到查询结果上
+    @Autowired
+    LiveFlowWindows liveFlowWindows;
+    @Autowired
+    MetroDataService metroDataService;
     @Override
+    @Cacheable
     public List<AmountDto> findByDate(Date date){
 
-        List<AmountDto> Sublist =subAmountmapper.findByDate(date);
+        if (liveFlowWindows.covers(date)) {
+            // 叠加后排名可能变化，取全部站点重新排序
+            List<AmountDto> merged = new ArrayList<>(liveFlowWindows.overlayStations(date, flowRollupMapper.getMap(date)));
+            merged.sort((a, b) -> Long.compare(b.getInNum() + b.getOutNum(), a.getInNum() + a.getOutNum()));
+            return merged.size() > 10 ? new ArrayList<>(merged.subList(0, 10)) : merged;
+        }
+        List<AmountDto> Sublist =flowRollupMapper.findByDate(date);
 
         return Sublist;
     }
    @Override
+   @Cacheable
    public List<DateAmountDto> findTotal(){
 
-        return subAmountmapper.findTotal();
+        return liveFlowWindows.overlayDays(flowRollupMapper.findTotal(), null, null, null);
    }
 
     @Override
+    @Cacheable
+    @DateKeyed(span = 7)
     public List<DateAmountDto> getWeeklyTotals(String station, Date endDate) {
         // 计算 endDate 减去 6 天的起始日期
         Calendar calendar = Calendar.getInstance();
         calendar.setTime(endDate);
         calendar.add(Calendar.DAY_OF_YEAR, -6); // 减去 6 天
         Date startDate = calendar.getTime();
-        return subAmountmapper.getWeeklyTotals(station, startDate, endDate);
+        // 按站点 id 走 (station_id, date) 索引
+        Long stationId = stationDictionary.idOf(station);
+        List<DateAmountDto> rows = stationId == null ? new ArrayList<>()
+                : flowRollupMapper.getWeeklyTotals(stationId, startDate, endDate);
+        return liveFlowWindows.overlayDays(rows, station, startDate, endDate);
     }
 
     @Override
+    @Cacheable
     public List<AmountDto>getMap(Date date){
 
-        return subAmountmapper.getMap(date);
+        return liveFlowWindows.overlayStations(date, flowRollupMapper.getMap(date));
     }
     @Override
+    @Cacheable
     public List<TimeAmountDto> getTrend(Date date){
 
-        return subAmountmapper.getTrend(date);
+        return liveFlowWindows.overlayHours(date, flowRollupMapper.getTrend(date));
     }
     @Override
+    @Cacheable(cacheNames = FlowCacheInvalidator.PREDICT)
     public List<TimeSlotDto> getpredict(LocalDate date, String station){
 
-        return subAmountmapper.getpredict(date,station);
+        // 写入预测时已按小时汇总好，按 (date, station) 主键读取
+        return metroDataService.getHourlyPredictions(date, station);
     }
 
 
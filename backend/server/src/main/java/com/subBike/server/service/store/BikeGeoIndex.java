@@ -0,0 +1,229 @@
+package com.subBike.server.service.store;
+
+import com.subBike.server.entity.dto.BikeLocationDto;
+import com.subBike.server.event.FlowDataChangedEvent;
+import com.subBike.server.util.Geohash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntConsumer;
+
+/**
+ * bikeAmount 的内存空间索引：每天一份按 geohash 排序的站点数组
+ *
+ * 排序键按经纬度重新编码为最高精度（CSV 中的 geohash 只有 7 位），任意精度的前缀都能命中。
+ * 矩形查询先用 Geohash.cover 得到少量前缀，每个前缀在排序数组上二分出一段连续区间，
+ * 再按经纬度精确过滤；附近查询把半径换成外接矩形后同样处理，再按距离过滤排序。
+ * 数据在首次查询时加载，单车数据写入后按日期重新加载。
+ */
+@Component
+public class BikeGeoIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BikeGeoIndex.class);
+
+    // 覆盖矩形最多使用的格子数
+    private static final int MAX_CELLS = 16;
+
+    private static final String LOAD_SQL =
+            "SELECT date, station, number, geohash, lng, lat FROM bike_amount WHERE geohash IS NOT NULL";
+    private static final String LOAD_DAY_SQL = LOAD_SQL + " AND date = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentSkipListMap<LocalDate, Day> days = new ConcurrentSkipListMap<>();
+    private volatile boolean loaded;
+
+    public void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    public void reload() {
+        long start = System.nanoTime();
+        Map<LocalDate, List<Row>> rows = new HashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            rows.computeIfAbsent(rs.getDate(1).toLocalDate(), d -> new ArrayList<>())
+                    .add(new Row(rs.getString(2), rs.getLong(3), rs.getString(4), rs.getDouble(5), rs.getDouble(6)));
+        });
+        Map<LocalDate, Day> fresh = new HashMap<>();
+        rows.forEach((date, list) -> fresh.put(date, new Day(list)));
+        days.keySet().retainAll(fresh.keySet());
+        days.putAll(fresh);
+        loaded = true;
+        logger.info("BikeGeoIndex loaded {} days in {} ms", fresh.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void reloadDay(LocalDate date) {
+        if (!loaded) {
+            return;
+        }
+        List<Row> rows = jdbcTemplate.query(LOAD_DAY_SQL,
+                (rs, i) -> new Row(rs.getString(2), rs.getLong(3), rs.getString(4), rs.getDouble(5), rs.getDouble(6)),
+                java.sql.Date.valueOf(date));
+        if (rows.isEmpty()) {
+            days.remove(date);
+        } else {
+            days.put(date, new Day(rows));
+        }
+    }
+
+    @EventListener
+    public void onDataChanged(FlowDataChangedEvent event) {
+        if (event.getDataset() == FlowDataChangedEvent.Dataset.BIKE) {
+            event.getDates().forEach(this::reloadDay);
+        }
+    }
+
+    /**
+     * @return 有数据的最新日期，没有数据返回 null
+     */
+    public LocalDate latestDate() {
+        ensureLoaded();
+        return days.isEmpty() ? null : days.lastKey();
+    }
+
+    /**
+     * 矩形内的站点，同一 geohash 格子内的站点相邻
+     */
+    public List<BikeLocationDto> within(LocalDate date, double minLat, double minLng, double maxLat, double maxLng) {
+        ensureLoaded();
+        Day day = days.get(date);
+        List<BikeLocationDto> result = new ArrayList<>();
+        if (day == null) {
+            return result;
+        }
+        day.scan(minLat, minLng, maxLat, maxLng, i -> result.add(day.dto(i, null)));
+        return result;
+    }
+
+    /**
+     * 距站点 radiusMeters 米内的其他站点，按距离由近到远
+     *
+     * @return 站点当天没有位置数据时返回 null
+     */
+    public List<BikeLocationDto> near(LocalDate date, String station, double radiusMeters) {
+        ensureLoaded();
+        Day day = days.get(date);
+        if (day == null) {
+            return null;
+        }
+        Integer center = day.byStation.get(station);
+        if (center == null) {
+            return null;
+        }
+        double lat = day.lat[center];
+        double lng = day.lng[center];
+        // 球面上圆的外接经纬度矩形
+        double angle = radiusMeters / Geohash.EARTH_RADIUS_METERS;
+        double dLat = Math.toDegrees(angle);
+        double dLng = Math.toDegrees(Math.asin(Math.min(1, Math.sin(angle) / Math.cos(Math.toRadians(lat)))));
+        List<BikeLocationDto> result = new ArrayList<>();
+        day.scan(lat - dLat, lng - dLng, lat + dLat, lng + dLng, i -> {
+            if (i != center) {
+                double distance = Geohash.distanceMeters(lat, lng, day.lat[i], day.lng[i]);
+                if (distance <= radiusMeters) {
+                    result.add(day.dto(i, distance));
+                }
+            }
+        });
+        result.sort(Comparator.comparingDouble(BikeLocationDto::getDistance));
+        return result;
+    }
+
+    private static final class Row {
+        final String station;
+        final long number;
+        final String geohash;
+        final double lng;
+        final double lat;
+
+        Row(String station, long number, String geohash, double lng, double lat) {
+            this.station = station;
+            this.number = number;
+            this.geohash = geohash;
+            this.lng = lng;
+            this.lat = lat;
+        }
+    }
+
+    /**
+     * 某一天的站点，列式存放并按排序键排序
+     */
+    private static final class Day {
+        final String[] key;
+        final String[] geohash;
+        final String[] station;
+        final long[] number;
+        final double[] lng;
+        final double[] lat;
+        final Map<String, Integer> byStation;
+
+        Day(List<Row> rows) {
+            int n = rows.size();
+            String[] keys = new String[n];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = Geohash.encode(rows.get(i).lat, rows.get(i).lng, Geohash.MAX_PRECISION);
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(i -> keys[i]));
+            key = new String[n];
+            geohash = new String[n];
+            station = new String[n];
+            number = new long[n];
+            lng = new double[n];
+            lat = new double[n];
+            byStation = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                Row row = rows.get(order[i]);
+                key[i] = keys[order[i]];
+                geohash[i] = row.geohash;
+                station[i] = row.station;
+                number[i] = row.number;
+                lng[i] = row.lng;
+                lat[i] = row.lat;
+                byStation.put(row.station, i);
+            }
+        }
+
+        void scan(double minLat, double minLng, double maxLat, double maxLng, IntConsumer action) {
+            for (String prefix : Geohash.cover(minLat, minLng, maxLat, maxLng, MAX_CELLS)) {
+                for (int i = lowerBound(prefix); i < key.length && key[i].startsWith(prefix); i++) {
+                    if (lat[i] >= minLat && lat[i] <= maxLat && lng[i] >= minLng && lng[i] <= maxLng) {
+                        action.accept(i);
+                    }
+                }
+            }
+        }
+
+        int lowerBound(String prefix) {
+            int lo = 0;
+            int hi = key.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (key[mid].compareTo(prefix) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        BikeLocationDto dto(int i, Double distance) {
+            return new BikeLocationDto(station[i], geohash[i], lng[i], lat[i], number[i], distance);
+        }
+    }
+}
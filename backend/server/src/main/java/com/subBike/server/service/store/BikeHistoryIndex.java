@@ -0,0 +1,188 @@
+package com.subBike.server.service.store;
+
+import com.subBike.server.entity.dto.StationBikeDto;
+import com.subBike.server.event.FlowDataChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每个站点的单车数量历史，按日期排序并维护前缀和
+ *
+ * 某站点在某天之前的平均单车数 = 前缀和 / 之前的天数，二分定位后 O(1) 得到，
+ * 不必每次对全部历史求 AVG。单车数据按日期写入后只把这些日期的行合并进来。
+ */
+@Component
+public class BikeHistoryIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BikeHistoryIndex.class);
+
+    private static final String LOAD_SQL = "SELECT station, date, number FROM bike_amount";
+    private static final String LOAD_DAY_SQL = LOAD_SQL + " WHERE date = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        Map<String, TreeMap<LocalDate, Long>> rows = new HashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            rows.computeIfAbsent(rs.getString(1), s -> new TreeMap<>())
+                    .put(rs.getDate(2).toLocalDate(), rs.getLong(3));
+        });
+        Map<String, Series> fresh = new HashMap<>();
+        rows.forEach((station, values) -> fresh.put(station, new Series(values)));
+        series.keySet().retainAll(fresh.keySet());
+        series.putAll(fresh);
+        loaded = true;
+        logger.info("BikeHistoryIndex loaded {} stations in {} ms", fresh.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 合并某一天的最新数据（覆盖同站点同日期的旧值）
+     */
+    public synchronized void mergeDay(LocalDate date) {
+        if (!loaded) {
+            return;
+        }
+        jdbcTemplate.query(LOAD_DAY_SQL, rs -> {
+            String station = rs.getString(1);
+            long number = rs.getLong(3);
+            Series current = series.get(station);
+            series.put(station, current == null
+                    ? new Series(new TreeMap<>(Map.of(date, number)))
+                    : current.with(date, number));
+        }, java.sql.Date.valueOf(date));
+    }
+
+    @EventListener
+    public void onDataChanged(FlowDataChangedEvent event) {
+        if (event.getDataset() == FlowDataChangedEvent.Dataset.BIKE) {
+            event.getDates().forEach(this::mergeDay);
+        }
+    }
+
+    /**
+     * 站点当天的单车数与此前各天的平均值
+     *
+     * @return {当天数量, 此前总和, 此前天数}；当天没有数据返回 null
+     */
+    public long[] lookup(String station, LocalDate date) {
+        ensureLoaded();
+        Series s = series.get(station);
+        return s == null ? null : s.lookup(date);
+    }
+
+    /**
+     * 当天有数据的所有站点，逐个给出 {当天数量, 此前总和, 此前天数}
+     */
+    public Map<String, long[]> lookupAll(LocalDate date) {
+        ensureLoaded();
+        Map<String, long[]> result = new HashMap<>(series.size() * 2);
+        series.forEach((station, s) -> {
+            long[] values = s.lookup(date);
+            if (values != null) {
+                result.put(station, values);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * [from, to] 内单车数合计的前 k 名，降序，并列时按站点名；区间内没有数据的站点不参与
+     *
+     * 每个站点二分定位区间后由前缀和 O(1) 得到合计，再用大小为 k 的堆选出前几名，
+     * 不必在库里对整段日期 GROUP BY 后全量排序。
+     */
+    public List<StationBikeDto> top(LocalDate from, LocalDate to, int k) {
+        ensureLoaded();
+        Comparator<StationBikeDto> order = Comparator.comparingLong(StationBikeDto::getNumber)
+                .thenComparing(StationBikeDto::getStationName, Comparator.reverseOrder());
+        // k 来自请求参数，按站点数截断后再分配堆
+        int limit = Math.min(k, Math.max(series.size(), 1));
+        PriorityQueue<StationBikeDto> heap = new PriorityQueue<>(limit + 1, order);
+        series.forEach((station, s) -> {
+            long sum = s.sum(from, to);
+            if (sum >= 0) {
+                heap.offer(new StationBikeDto(station, sum));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+        });
+        List<StationBikeDto> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+
+    /**
+     * 单个站点按日期排序的数量及前缀和，不可变，更新时整体替换
+     */
+    private static final class Series {
+        final LocalDate[] dates;
+        final long[] numbers;
+        // prefix[i] = numbers[0] + ... + numbers[i - 1]
+        final long[] prefix;
+
+        Series(SortedMap<LocalDate, Long> values) {
+            int n = values.size();
+            dates = new LocalDate[n];
+            numbers = new long[n];
+            prefix = new long[n + 1];
+            int i = 0;
+            for (Map.Entry<LocalDate, Long> entry : values.entrySet()) {
+                dates[i] = entry.getKey();
+                numbers[i] = entry.getValue();
+                prefix[i + 1] = prefix[i] + numbers[i];
+                i++;
+            }
+        }
+
+        Series with(LocalDate date, long number) {
+            TreeMap<LocalDate, Long> values = new TreeMap<>();
+            for (int i = 0; i < dates.length; i++) {
+                values.put(dates[i], numbers[i]);
+            }
+            values.put(date, number);
+            return new Series(values);
+        }
+
+        long[] lookup(LocalDate date) {
+            int i = Arrays.binarySearch(dates, date);
+            if (i < 0) {
+                return null;
+            }
+            return new long[]{numbers[i], prefix[i], i};
+        }
+
+        /**
+         * @return [from, to] 内的合计，区间内没有数据返回 -1
+         */
+        long sum(LocalDate from, LocalDate to) {
+            int lo = Arrays.binarySearch(dates, from);
+            int hi = Arrays.binarySearch(dates, to);
+            lo = lo >= 0 ? lo : -lo - 1;
+            hi = hi >= 0 ? hi + 1 : -hi - 1;
+            return hi > lo ? prefix[hi] - prefix[lo] : -1L;
+        }
+    }
+}
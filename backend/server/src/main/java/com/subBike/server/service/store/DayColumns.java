@@ -0,0 +1,114 @@
+package com.subBike.server.service.store;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 单日的站点×小时列式数据：下标 = 站点序号 * 24 + 小时
+ * present 记录该格子在 subAmount 中是否真的有行，用来区分"没有数据"和"数据为0"，
+ * 保证内存查询与 GROUP BY 结果一致（没有行的站点/小时不出现在结果里）。
+ */
+public final class DayColumns {
+    private final LocalDate date;
+    private int[] inNum;
+    private int[] outNum;
+    private final BitSet present = new BitSet();
+    private long version;
+
+    DayColumns(LocalDate date, int stationCapacity) {
+        this.date = date;
+        this.inNum = new int[stationCapacity * StationFlowStore.HOURS];
+        this.outNum = new int[stationCapacity * StationFlowStore.HOURS];
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int in(int station, int hour) {
+        int idx = station * StationFlowStore.HOURS + hour;
+        return idx < inNum.length ? inNum[idx] : 0;
+    }
+
+    public int out(int station, int hour) {
+        int idx = station * StationFlowStore.HOURS + hour;
+        return idx < outNum.length ? outNum[idx] : 0;
+    }
+
+    public boolean present(int station, int hour) {
+        return present.get(station * StationFlowStore.HOURS + hour);
+    }
+
+    /**
+     * 该站点当天是否有任意一个小时的数据
+     */
+    public boolean hasStation(int station) {
+        int from = station * StationFlowStore.HOURS;
+        int next = present.nextSetBit(from);
+        return next >= 0 && next < from + StationFlowStore.HOURS;
+    }
+
+    public long inTotal(int station) {
+        return sum(inNum, station);
+    }
+
+    public long outTotal(int station) {
+        return sum(outNum, station);
+    }
+
+    /**
+     * 当天有数据的格子数（即 subAmount 中该日期的行数）
+     */
+    public int cellCount() {
+        return present.cardinality();
+    }
+
+    /**
+     * 最后一次被修改时 StationFlowStore 的数据版本
+     */
+    public long version() {
+        return version;
+    }
+
+    void stamp(long version) {
+        this.version = version;
+    }
+
+    void set(int station, int hour, int in, int out) {
+        ensureCapacity(station + 1);
+        int idx = station * StationFlowStore.HOURS + hour;
+        inNum[idx] = in;
+        outNum[idx] = out;
+        present.set(idx);
+    }
+
+    void add(int station, int hour, int in, int out) {
+        ensureCapacity(station + 1);
+        int idx = station * StationFlowStore.HOURS + hour;
+        inNum[idx] += in;
+        outNum[idx] += out;
+        present.set(idx);
+    }
+
+    private void ensureCapacity(int stations) {
+        int required = stations * StationFlowStore.HOURS;
+        if (required > inNum.length) {
+            int grown = Math.max(required, inNum.length + (inNum.length >> 1));
+            inNum = Arrays.copyOf(inNum, grown);
+            outNum = Arrays.copyOf(outNum, grown);
+        }
+    }
+
+    private static long sum(int[] column, int station) {
+        int from = station * StationFlowStore.HOURS;
+        if (from >= column.length) {
+            return 0L;
+        }
+        long total = 0L;
+        for (int h = 0; h < StationFlowStore.HOURS; h++) {
+            total += column[from + h];
+        }
+        return total;
+    }
+}
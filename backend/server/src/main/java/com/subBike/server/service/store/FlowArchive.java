@@ -0,0 +1,343 @@
+package com.subBike.server.service.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * subAmount 历史小时数据的归档段文件，每月一个，只读内存映射（数据在堆外，由页缓存承载）
+ *
+ * 文件 sub_amount-yyyy-MM.seg，大端：
+ * 头部 8 个 int：魔数、版本、年、月、当月天数、站点数 n、已归档日期位图、数据区偏移；
+ * 随后 n 个站名（short 长度 + UTF-8），补齐到 8 字节；
+ * 数据区定长：第 d 天（从 0 起）站点序号 s 小时 h 的格子在 ((d * n + s) * 24 + h) * 8，
+ * 依次是 int 进站、int 出站，进站为 -1 表示 subAmount 中没有这一行。
+ *
+ * 读取不依赖数据库；写入由 FlowArchiveCompactor 整月重写后原子替换。
+ */
+@Component
+public class FlowArchive {
+    private static final Logger logger = LoggerFactory.getLogger(FlowArchive.class);
+
+    public static final int HOURS = StationFlowStore.HOURS;
+
+    private static final int MAGIC = 0x53554241; // "SUBA"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+    private static final int CELL_BYTES = 8;
+    private static final int ABSENT = -1;
+    private static final Pattern FILE_NAME = Pattern.compile("sub_amount-(\\d{4})-(\\d{2})\\.seg");
+
+    @Value("${subway.archive.dir:./data/sub-amount-archive}")
+    private String dir;
+
+    private final ConcurrentSkipListMap<YearMonth, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile boolean opened;
+
+    /**
+     * 段文件目录（配置值，未解析相对路径）
+     */
+    public Path directory() {
+        return Paths.get(dir);
+    }
+
+    /**
+     * 首次使用时扫描目录并映射已有的段文件；目录不存在时没有归档
+     */
+    public void ensureOpened() {
+        if (!opened) {
+            synchronized (this) {
+                if (!opened) {
+                    open();
+                }
+            }
+        }
+    }
+
+    private void open() {
+        Path root = Paths.get(dir);
+        if (Files.isDirectory(root)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "sub_amount-*.seg")) {
+                for (Path file : files) {
+                    Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                    if (m.matches()) {
+                        YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+                        segments.put(month, Segment.map(file));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            logger.info("FlowArchive mapped {} segments, {} days from {}", segments.size(), dates().size(), root);
+        }
+        opened = true;
+    }
+
+    /**
+     * 已归档的日期
+     */
+    public NavigableSet<LocalDate> dates() {
+        ensureOpened();
+        NavigableSet<LocalDate> dates = new TreeSet<>();
+        segments.forEach((month, segment) -> {
+            for (int d = 0; d < segment.days; d++) {
+                if (segment.hasDay(d)) {
+                    dates.add(month.atDay(d + 1));
+                }
+            }
+        });
+        return dates;
+    }
+
+    public boolean contains(LocalDate date) {
+        ensureOpened();
+        Segment segment = segments.get(YearMonth.from(date));
+        return segment != null && segment.hasDay(date.getDayOfMonth() - 1);
+    }
+
+    /**
+     * 逐行访问某天的归档数据（只有 subAmount 中存在过的站点/小时）
+     */
+    public void forEachRow(LocalDate date, RowVisitor visitor) {
+        ensureOpened();
+        Segment segment = segments.get(YearMonth.from(date));
+        if (segment != null) {
+            segment.forEachRow(date.getDayOfMonth() - 1, visitor);
+        }
+    }
+
+    /**
+     * 以某月现有归档为基础的构建器，用于整月重写
+     */
+    public MonthBuilder builder(YearMonth month) {
+        ensureOpened();
+        MonthBuilder builder = new MonthBuilder(month);
+        Segment segment = segments.get(month);
+        if (segment != null) {
+            for (int d = 0; d < segment.days; d++) {
+                LocalDate day = month.atDay(d + 1);
+                segment.forEachRow(d, (station, hour, in, out) -> builder.put(day, station, hour, in, out));
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * 写入整月段文件：先写临时文件再原子替换，然后重新映射
+     * 替换前已打开的映射仍指向旧文件，读请求不受影响
+     */
+    public synchronized void write(MonthBuilder builder) throws IOException {
+        ensureOpened();
+        Path root = Files.createDirectories(Paths.get(dir));
+        YearMonth month = builder.month;
+        Path target = root.resolve(String.format("sub_amount-%04d-%02d.seg", month.getYear(), month.getMonthValue()));
+        Path tmp = root.resolve(target.getFileName() + ".tmp");
+        List<String> stations = builder.stations;
+        int n = stations.size();
+        int days = month.lengthOfMonth();
+
+        List<byte[]> names = new ArrayList<>(n);
+        int headerBytes = HEADER_INTS * Integer.BYTES;
+        for (String station : stations) {
+            byte[] name = station.getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            headerBytes += Short.BYTES + name.length;
+        }
+        int bodyOffset = (headerBytes + 7) & ~7;
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(bodyOffset);
+            header.putInt(MAGIC).putInt(VERSION).putInt(month.getYear()).putInt(month.getMonthValue())
+                    .putInt(days).putInt(n).putInt(builder.dayMask()).putInt(bodyOffset);
+            for (byte[] name : names) {
+                header.putShort((short) name.length).put(name);
+            }
+            header.position(0).limit(bodyOffset);
+            writeFully(channel, header);
+
+            ByteBuffer day = ByteBuffer.allocate(n * HOURS * CELL_BYTES);
+            for (int d = 0; d < days; d++) {
+                day.clear();
+                List<int[]> rows = builder.days[d];
+                for (int s = 0; s < n; s++) {
+                    int[] row = rows == null || s >= rows.size() ? null : rows.get(s);
+                    for (int h = 0; h < HOURS; h++) {
+                        if (row == null || row[h] == ABSENT) {
+                            day.putInt(ABSENT).putInt(0);
+                        } else {
+                            day.putInt(row[h]).putInt(row[HOURS + h]);
+                        }
+                    }
+                }
+                day.flip();
+                writeFully(channel, day);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        segments.put(month, Segment.map(target));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void accept(String station, int hour, int in, int out);
+    }
+
+    /**
+     * 一个月的数据，按天 → 站点序号 → {24 个进站, 24 个出站}
+     */
+    public static final class MonthBuilder {
+        private final YearMonth month;
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> stations = new ArrayList<>();
+        private final List<int[]>[] days;
+
+        @SuppressWarnings("unchecked")
+        MonthBuilder(YearMonth month) {
+            this.month = month;
+            this.days = new List[month.lengthOfMonth()];
+        }
+
+        public YearMonth getMonth() {
+            return month;
+        }
+
+        /**
+         * 清空某天（重新归档前调用），站点表保留
+         */
+        public void clearDay(LocalDate day) {
+            days[index(day)] = null;
+        }
+
+        public void put(LocalDate day, String station, int hour, int in, int out) {
+            int d = index(day);
+            List<int[]> rows = days[d];
+            if (rows == null) {
+                rows = new ArrayList<>();
+                days[d] = rows;
+            }
+            int s = ordinals.computeIfAbsent(station, k -> {
+                stations.add(k);
+                return stations.size() - 1;
+            });
+            while (rows.size() <= s) {
+                rows.add(null);
+            }
+            int[] row = rows.get(s);
+            if (row == null) {
+                row = new int[HOURS * 2];
+                Arrays.fill(row, 0, HOURS, ABSENT);
+                rows.set(s, row);
+            }
+            row[hour] = in;
+            row[HOURS + hour] = out;
+        }
+
+        private int index(LocalDate day) {
+            if (!YearMonth.from(day).equals(month)) {
+                throw new IllegalArgumentException(day + " 不属于 " + month);
+            }
+            return day.getDayOfMonth() - 1;
+        }
+
+        int dayMask() {
+            int mask = 0;
+            for (int d = 0; d < days.length; d++) {
+                if (days[d] != null) {
+                    mask |= 1 << d;
+                }
+            }
+            return mask;
+        }
+    }
+
+    /**
+     * 已映射的段文件
+     */
+    private static final class Segment {
+        final MappedByteBuffer buffer;
+        final String[] stations;
+        final int days;
+        final int dayMask;
+        final int bodyOffset;
+
+        private Segment(MappedByteBuffer buffer, String[] stations, int days, int dayMask, int bodyOffset) {
+            this.buffer = buffer;
+            this.stations = stations;
+            this.days = days;
+            this.dayMask = dayMask;
+            this.bodyOffset = bodyOffset;
+        }
+
+        static Segment map(Path file) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                // 映射在通道关闭后依然有效
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a sub_amount segment: " + file);
+            }
+            int days = buffer.getInt(16);
+            int n = buffer.getInt(20);
+            int dayMask = buffer.getInt(24);
+            int bodyOffset = buffer.getInt(28);
+            String[] stations = new String[n];
+            int pos = HEADER_INTS * Integer.BYTES;
+            for (int s = 0; s < n; s++) {
+                int length = buffer.getShort(pos);
+                byte[] name = new byte[length];
+                buffer.get(pos + Short.BYTES, name);
+                stations[s] = new String(name, StandardCharsets.UTF_8);
+                pos += Short.BYTES + length;
+            }
+            long expected = bodyOffset + (long) days * n * HOURS * CELL_BYTES;
+            if (buffer.capacity() != expected) {
+                throw new IOException("Truncated sub_amount segment: " + file);
+            }
+            return new Segment(buffer, stations, days, dayMask, bodyOffset);
+        }
+
+        boolean hasDay(int d) {
+            return (dayMask & (1 << d)) != 0;
+        }
+
+        void forEachRow(int d, RowVisitor visitor) {
+            if (!hasDay(d)) {
+                return;
+            }
+            int n = stations.length;
+            int offset = bodyOffset + d * n * HOURS * CELL_BYTES;
+            for (int s = 0; s < n; s++) {
+                for (int h = 0; h < HOURS; h++, offset += CELL_BYTES) {
+                    int in = buffer.getInt(offset);
+                    if (in != ABSENT) {
+                        visitor.accept(stations[s], h, in, buffer.getInt(offset + Integer.BYTES));
+                    }
+                }
+            }
+        }
+    }
+}
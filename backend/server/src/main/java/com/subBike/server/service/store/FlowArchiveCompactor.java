@@ -0,0 +1,155 @@
+package com.subBike.server.service.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 定时把早于 horizon 天的 subAmount 小时数据压缩进 FlowArchive，再从 MySQL 删除
+ *
+ * 汇总表（station_daily_flow / daily_flow / hourly_flow）保留在库中，仪表盘查询不受影响；
+ * 小时明细之后由 StationFlowStore 从段文件读取。先写文件后删行，中途失败时
+ * 同一天在库和归档里各有一份，以库为准，下次运行重新归档。
+ *
+ * 删除前在事务里锁住这一天的行，按（站点, 时段）顺序对每行内容做摘要，与归档时读到的摘要比对；
+ * 期间有新写入、修改（实时落库、补导）就跳过这一天，留给下次运行，避免删掉没归档的行。
+ *
+ * 段文件是被删除明细的唯一副本，subway.archive.dir 必须配置为绝对路径（持久化、多实例共享的存储），
+ * 否则不压缩。
+ */
+@Component
+@ConditionalOnProperty(name = "subway.archive.enabled", havingValue = "true")
+public class FlowArchiveCompactor {
+    private static final Logger logger = LoggerFactory.getLogger(FlowArchiveCompactor.class);
+
+    private static final String DATES_SQL = "SELECT DISTINCT date FROM sub_amount WHERE date < ?";
+    private static final String DAY_SQL =
+            "SELECT station, time, in_num, out_num FROM sub_amount WHERE date = ? ORDER BY station, time";
+    private static final String LOCK_DAY_SQL =
+            "SELECT station, time, in_num, out_num FROM sub_amount WHERE date = ? ORDER BY station, time FOR UPDATE";
+    private static final String DELETE_DAY_SQL = "DELETE FROM sub_amount WHERE date = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FlowArchive archive;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${subway.archive.horizon-days:180}")
+    private int horizonDays;
+
+    @Scheduled(cron = "${subway.archive.cron:0 30 3 * * ?}")
+    public void compactScheduled() {
+        try {
+            compact(LocalDate.now().minusDays(horizonDays));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("SubAmount archive compaction failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 归档 cutoff 之前的所有日期
+     *
+     * @return 归档的天数
+     */
+    public int compact(LocalDate cutoff) throws IOException {
+        if (!archive.directory().isAbsolute()) {
+            throw new IllegalStateException("subway.archive.dir must be an absolute path before rows are deleted, got "
+                    + archive.directory());
+        }
+        Map<YearMonth, TreeSet<LocalDate>> months = new TreeMap<>();
+        for (Date date : jdbcTemplate.queryForList(DATES_SQL, Date.class, Date.valueOf(cutoff))) {
+            LocalDate day = date.toLocalDate();
+            months.computeIfAbsent(YearMonth.from(day), m -> new TreeSet<>()).add(day);
+        }
+        int archived = 0;
+        for (Map.Entry<YearMonth, TreeSet<LocalDate>> entry : months.entrySet()) {
+            long start = System.nanoTime();
+            FlowArchive.MonthBuilder builder = archive.builder(entry.getKey());
+            Map<LocalDate, byte[]> snapshots = new HashMap<>();
+            for (LocalDate day : entry.getValue()) {
+                builder.clearDay(day);
+                MessageDigest snapshot = newDigest();
+                jdbcTemplate.query(DAY_SQL, rs -> {
+                    builder.put(day, rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+                    add(snapshot, rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+                }, Date.valueOf(day));
+                snapshots.put(day, snapshot.digest());
+            }
+            archive.write(builder);
+            int rows = 0;
+            int days = 0;
+            for (LocalDate day : entry.getValue()) {
+                Integer deleted = deleteIfUnchanged(day, snapshots.get(day));
+                if (deleted == null) {
+                    logger.info("SubAmount rows of {} changed while archiving, keeping them for the next run", day);
+                    continue;
+                }
+                rows += deleted;
+                days++;
+            }
+            archived += days;
+            logger.info("Archived {} days ({} rows) of {} in {} ms", days, rows, entry.getKey(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return archived;
+    }
+
+    /**
+     * 锁住这一天的行后与快照比对，一致才删除
+     *
+     * @return 删除的行数；有变化时返回 null
+     */
+    private Integer deleteIfUnchanged(LocalDate day, byte[] snapshot) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            MessageDigest current = newDigest();
+            jdbcTemplate.query(LOCK_DAY_SQL, rs -> {
+                add(current, rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+            }, Date.valueOf(day));
+            if (!MessageDigest.isEqual(current.digest(), snapshot)) {
+                return null;
+            }
+            return jdbcTemplate.update(DELETE_DAY_SQL, Date.valueOf(day));
+        });
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 快照：按查询顺序逐行摘要（站名带长度前缀，行与行之间不会拼接出相同的字节）
+     */
+    private static void add(MessageDigest snapshot, String station, int time, int in, int out) {
+        byte[] name = station.getBytes(StandardCharsets.UTF_8);
+        snapshot.update(ByteBuffer.allocate(4 + name.length + 12)
+                .putInt(name.length).put(name).putInt(time).putInt(in).putInt(out).array());
+    }
+}
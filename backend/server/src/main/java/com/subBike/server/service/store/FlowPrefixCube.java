@@ -0,0 +1,207 @@
+package com.subBike.server.service.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NavigableSet;
+
+/**
+ * StationFlowStore 上的前缀和立方体：日期 × 小时 × 站点
+ *
+ * 每个站点一张 (天数 + 1) × 25 的二维前缀和表，P[d][h] = 前 d 天、前 h 个小时的合计
+ * （日期按第一天起连续编号，中间缺的日期按 0 计）。任意日期区间 × 小时区间的合计
+ * 只需查 4 个格子，一次查询的开销与站点数成正比，与日期跨度无关。
+ *
+ * 前缀和用 int 存储并允许溢出回绕：四项加减在 32 位上依然精确，结果按无符号读取，
+ * 单站点区间合计在 2^32 以内即正确。一年约 330 站 × 366 天 × 25 × 8 字节 ≈ 24 MB。
+ *
+ * 导入、实时落库、归档都会改 StationFlowStore 的数据版本；查询时发现版本变化，
+ * 只从最早被改动的那一天往后重算，导入当天的数据只需重算最后一天。
+ */
+@Component
+public class FlowPrefixCube {
+    private static final Logger logger = LoggerFactory.getLogger(FlowPrefixCube.class);
+
+    private static final int HOURS = StationFlowStore.HOURS;
+    private static final int ROW = HOURS + 1;
+
+    // 站点序号 → 前缀和表，下标 d * 25 + h
+    private int[][] inSums = new int[0][];
+    private int[][] outSums = new int[0][];
+    private int dayCapacity;
+
+    private LocalDate first;
+    private int dayCount;
+    // 构建时存在的日期（相对 first 的编号），用于发现整天被删除
+    private final BitSet builtDays = new BitSet();
+    private long builtVersion = -1;
+
+    /**
+     * 各站点在 [from, to] × [hourFrom, hourTo] 内的进站、出站合计，结果写入 in[i] / out[i]
+     * 须在 StationFlowStore.read 内调用；stations 中的 -1（未知站点）结果为 0
+     */
+    public void sum(StationFlowStore.View view, LocalDate from, LocalDate to, int hourFrom, int hourTo,
+                    int[] stations, long[] in, long[] out) {
+        Range range = range(view, from, to, hourFrom, hourTo);
+        for (int i = 0; i < stations.length; i++) {
+            in[i] = range.in(stations[i]);
+            out[i] = range.out(stations[i]);
+        }
+    }
+
+    /**
+     * 按站点逐个随机访问的区间合计，只在本次 StationFlowStore.read 内有效
+     */
+    public Range range(StationFlowStore.View view, LocalDate from, LocalDate to, int hourFrom, int hourTo) {
+        refresh(view);
+        if (dayCount == 0) {
+            return new Range(0, 0, hourFrom, hourTo);
+        }
+        int d0 = (int) Math.max(ChronoUnit.DAYS.between(first, from), 0);
+        int d1 = (int) Math.min(ChronoUnit.DAYS.between(first, to) + 1, dayCount);
+        return new Range(d0, d1, hourFrom, hourTo);
+    }
+
+    public final class Range {
+        private final int lo0;
+        private final int lo1;
+        private final int hi0;
+        private final int hi1;
+        private final boolean empty;
+
+        private Range(int d0, int d1, int hourFrom, int hourTo) {
+            this.empty = d0 >= d1;
+            this.lo0 = d0 * ROW + hourFrom;
+            this.lo1 = d0 * ROW + hourTo + 1;
+            this.hi0 = d1 * ROW + hourFrom;
+            this.hi1 = d1 * ROW + hourTo + 1;
+        }
+
+        public long in(int station) {
+            return valid(station) ? range(inSums[station]) : 0L;
+        }
+
+        public long out(int station) {
+            return valid(station) ? range(outSums[station]) : 0L;
+        }
+
+        private boolean valid(int station) {
+            return !empty && station >= 0 && station < inSums.length;
+        }
+
+        private long range(int[] p) {
+            return Integer.toUnsignedLong(p[hi1] - p[lo1] - p[hi0] + p[lo0]);
+        }
+    }
+
+    /**
+     * 与 StationFlowStore 当前版本对齐
+     *
+     * 调用方持有 store 的读锁，版本在读锁内不会变化；持锁期间读过的前缀和表
+     * 要等 store 下一次写入之后才会被改写，所以读取不需要再加锁。
+     */
+    private synchronized void refresh(StationFlowStore.View view) {
+        long version = view.version();
+        if (version == builtVersion) {
+            return;
+        }
+        long start = System.nanoTime();
+        NavigableSet<LocalDate> days = view.days();
+        if (days.isEmpty()) {
+            first = null;
+            dayCount = 0;
+            builtDays.clear();
+            builtVersion = version;
+            return;
+        }
+        int from = changedFrom(view, days);
+        if (from == 0) {
+            first = days.first();
+            builtDays.clear();
+        }
+        dayCount = (int) ChronoUnit.DAYS.between(first, days.last()) + 1;
+        from = Math.min(from, dayCount);
+        ensureCapacity(view.stationCount(), dayCount);
+
+        DayColumns[] columns = new DayColumns[dayCount - from];
+        builtDays.clear(from, Math.max(from, builtDays.length()));
+        for (int d = from; d < dayCount; d++) {
+            columns[d - from] = view.day(first.plusDays(d));
+            if (columns[d - from] != null) {
+                builtDays.set(d);
+            }
+        }
+        for (int s = 0; s < view.stationCount(); s++) {
+            build(inSums[s], outSums[s], s, from, columns);
+        }
+        builtVersion = version;
+        logger.debug("FlowPrefixCube rebuilt days {}..{} for {} stations in {} ms",
+                first.plusDays(from), days.last(), view.stationCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 需要从第几天起重算：第一天变了则全部重算，否则取最早一个版本更新或被删除的日期
+     */
+    private int changedFrom(StationFlowStore.View view, NavigableSet<LocalDate> days) {
+        if (first == null || !first.equals(days.first())) {
+            return 0;
+        }
+        int from = dayCount;
+        for (LocalDate day : days) {
+            if (view.day(day).version() > builtVersion) {
+                from = Math.min(from, (int) ChronoUnit.DAYS.between(first, day));
+                break;
+            }
+        }
+        for (int d = builtDays.nextSetBit(0); d >= 0 && d < from; d = builtDays.nextSetBit(d + 1)) {
+            if (view.day(first.plusDays(d)) == null) {
+                from = d;
+            }
+        }
+        return from;
+    }
+
+    private static void build(int[] in, int[] out, int s, int from, DayColumns[] columns) {
+        for (int i = 0; i < columns.length; i++) {
+            DayColumns day = columns[i];
+            int prev = (from + i) * ROW;
+            int row = prev + ROW;
+            int rowIn = 0;
+            int rowOut = 0;
+            for (int h = 0; h < HOURS; h++) {
+                if (day != null) {
+                    rowIn += day.in(s, h);
+                    rowOut += day.out(s, h);
+                }
+                in[row + h + 1] = in[prev + h + 1] + rowIn;
+                out[row + h + 1] = out[prev + h + 1] + rowOut;
+            }
+        }
+    }
+
+    private void ensureCapacity(int stations, int days) {
+        if (days > dayCapacity) {
+            int grown = Math.max(days, dayCapacity + (dayCapacity >> 1));
+            for (int s = 0; s < inSums.length; s++) {
+                inSums[s] = Arrays.copyOf(inSums[s], (grown + 1) * ROW);
+                outSums[s] = Arrays.copyOf(outSums[s], (grown + 1) * ROW);
+            }
+            dayCapacity = grown;
+        }
+        if (stations > inSums.length) {
+            int old = inSums.length;
+            inSums = Arrays.copyOf(inSums, stations);
+            outSums = Arrays.copyOf(outSums, stations);
+            // 新站点在已构建的日期里都没有数据，前缀和为 0
+            for (int s = old; s < stations; s++) {
+                inSums[s] = new int[(dayCapacity + 1) * ROW];
+                outSums[s] = new int[(dayCapacity + 1) * ROW];
+            }
+        }
+    }
+}
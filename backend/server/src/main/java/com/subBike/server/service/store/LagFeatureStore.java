@@ -0,0 +1,164 @@
+package com.subBike.server.service.store;
+
+import com.subBike.server.service.MetroDataService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * 预测特征的增量存储：每个（站点, 时段）一段定长 float 环形缓冲，存最近 6 天的
+ * [in_count, out_count, temperature, humidity, wind_speed, minutes, day_of_week]
+ *
+ * 第 d 天落在环上的位置 d.toEpochDay() % 6，所有行共用同一个环，
+ * 第 r 行位置 p 的 7 个值在 cells[(r * 6 + p) * 7]，缺失为 NaN。
+ * 预测日期每往后一天，只需从 metro_historical_data 读入新的一天覆盖最旧的位置，
+ * 准备特征的开销与历史长度无关。
+ *
+ * 数据由外部脚本写入库中，没有写入通知：每次取特征时核对窗口内每天的内容指纹
+ * （行数、各数值列合计、最大 updated_at 与 id），与已读入的不一致（补写、重导、修正天气或客流）就重新读这一天。
+ */
+@Component
+public class LagFeatureStore {
+    private static final Logger logger = LoggerFactory.getLogger(LagFeatureStore.class);
+
+    private static final int LAGS = MetroDataService.LAGS;
+    private static final int BASE = MetroDataService.BASE_FEATURES;
+    private static final int ROW = LAGS * BASE;
+
+    private static final String DAY_SQL =
+            "SELECT station, district, time_slot, in_count, out_count, temperature, humidity, wind_speed " +
+            "FROM metro_historical_data WHERE date = ?";
+    // 行数不变的修正（天气、重新统计的客流）也要能发现
+    private static final String FINGERPRINT_SQL =
+            "SELECT COUNT(*), SUM(in_count), SUM(out_count), SUM(temperature), SUM(humidity), SUM(wind_speed), " +
+            "MAX(updated_at), MAX(id) FROM metro_historical_data WHERE date = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 站点 → 时段 → 行号，行只增不减
+    private final Map<String, Map<LocalTime, Integer>> rows = new HashMap<>();
+    private final List<String> stations = new ArrayList<>();
+    private final List<String> districts = new ArrayList<>();
+    private final List<LocalTime> slots = new ArrayList<>();
+    private float[] cells = new float[ROW * 256];
+
+    // 环上每个位置当前存的日期及读入前的内容指纹，null 表示空
+    private final LocalDate[] ringDays = new LocalDate[LAGS];
+    private final String[] ringFingerprints = new String[LAGS];
+
+    /**
+     * 构造 target 当天的预测输入：前 6 天里出现过的每个（站点, 时段）一行，缺失值为 NaN
+     */
+    public synchronized MetroDataService.FeatureBatch batch(LocalDate target) {
+        int[] positions = new int[LAGS];
+        for (int lag = 1; lag <= LAGS; lag++) {
+            LocalDate day = target.minusDays(lag);
+            int p = position(day);
+            positions[lag - 1] = p;
+            String fingerprint = fingerprint(day);
+            if (!day.equals(ringDays[p]) || !fingerprint.equals(ringFingerprints[p])) {
+                load(day, p);
+                ringFingerprints[p] = fingerprint;
+            }
+        }
+
+        MetroDataService.FeatureBatch batch = new MetroDataService.FeatureBatch(target);
+        for (int r = 0; r < stations.size(); r++) {
+            if (!present(r, positions)) {
+                continue;
+            }
+            int row = batch.addRow(stations.get(r), districts.get(r), slots.get(r));
+            float[] features = batch.getFeatures();
+            for (int lag = 0; lag < LAGS; lag++) {
+                System.arraycopy(cells, r * ROW + positions[lag] * BASE,
+                        features, row * MetroDataService.FEATURES + lag * BASE, BASE);
+            }
+        }
+        return batch;
+    }
+
+    private boolean present(int r, int[] positions) {
+        for (int p : positions) {
+            if (!Float.isNaN(cells[r * ROW + p * BASE])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把某天读入环上的位置 p，覆盖原来的那一天
+     */
+    private void load(LocalDate day, int p) {
+        long start = System.nanoTime();
+        for (int r = 0; r < stations.size(); r++) {
+            Arrays.fill(cells, r * ROW + p * BASE, r * ROW + (p + 1) * BASE, Float.NaN);
+        }
+        // 与 pandas weekday() 一致：周一为 0
+        float dayOfWeek = day.getDayOfWeek().getValue() - 1;
+        int[] count = new int[1];
+        jdbcTemplate.query(DAY_SQL, rs -> {
+            String station = rs.getString(1);
+            String district = rs.getString(2);
+            LocalTime slot = rs.getTime(3).toLocalTime();
+            int r = row(station, district, slot);
+            int base = r * ROW + p * BASE;
+            cells[base] = rs.getInt(4);
+            cells[base + 1] = rs.getInt(5);
+            cells[base + 2] = weather(rs.getBigDecimal(6));
+            cells[base + 3] = weather(rs.getBigDecimal(7));
+            cells[base + 4] = weather(rs.getBigDecimal(8));
+            cells[base + 5] = slot.getHour() * 100 + slot.getMinute();
+            cells[base + 6] = dayOfWeek;
+            count[0]++;
+        }, Date.valueOf(day));
+        ringDays[p] = day;
+        logger.debug("LagFeatureStore loaded {} rows for {} in {} ms", count[0], day, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private String fingerprint(LocalDate day) {
+        return jdbcTemplate.queryForObject(FINGERPRINT_SQL, (rs, i) -> {
+            StringJoiner joined = new StringJoiner("|");
+            for (int c = 1; c <= rs.getMetaData().getColumnCount(); c++) {
+                joined.add(String.valueOf(rs.getString(c)));
+            }
+            return joined.toString();
+        }, Date.valueOf(day));
+    }
+
+    private int row(String station, String district, LocalTime slot) {
+        Integer existing = rows.computeIfAbsent(station, s -> new HashMap<>()).get(slot);
+        if (existing != null) {
+            districts.set(existing, district);
+            return existing;
+        }
+        int r = stations.size();
+        rows.get(station).put(slot, r);
+        stations.add(station);
+        districts.add(district);
+        slots.add(slot);
+        if ((r + 1) * ROW > cells.length) {
+            cells = Arrays.copyOf(cells, cells.length * 2);
+        }
+        Arrays.fill(cells, r * ROW, (r + 1) * ROW, Float.NaN);
+        return r;
+    }
+
+    private static int position(LocalDate day) {
+        return (int) Math.floorMod(day.toEpochDay(), (long) LAGS);
+    }
+
+    // 与数据加载脚本一致：天气缺失按 0 处理
+    private static float weather(BigDecimal value) {
+        return value == null ? 0f : value.floatValue();
+    }
+}
@@ -0,0 +1,278 @@
+package com.subBike.server.service.store;
+
+import com.subBike.server.event.FlowDataChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * subAmount 表的内存列式副本：日期 × 站点序号 × 小时 → int 进/出站人数
+ *
+ * 整个五月的数据（约17万行）只占几 MB，仪表盘的聚合查询可以直接在内存里完成，
+ * 不必每次都在 MySQL 上跑 GROUP BY。站点序号按首次出现顺序分配，只增不减。
+ * 已从库中归档的日期（FlowArchive）从段文件读取；同一天库里也有行时以库为准。
+ */
+@Component
+public class StationFlowStore {
+    public static final int HOURS = 24;
+
+    private static final Logger logger = LoggerFactory.getLogger(StationFlowStore.class);
+
+    private static final String LOAD_SQL =
+            "SELECT date, station, time, in_num, out_num FROM sub_amount";
+    private static final String LOAD_DAY_SQL = LOAD_SQL + " WHERE date = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FlowArchive archive;
+
+    @Value("${subway.store.preload:false}")
+    private boolean preload;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile State state = new State();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (preload) {
+            ensureLoaded();
+        }
+    }
+
+    /**
+     * 首次使用时从数据库全量加载
+     */
+    public void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 全量重新加载：在新结构上构建，构建完成后整体替换，加载期间读请求不受影响
+     */
+    public void reload() {
+        long start = System.nanoTime();
+        State fresh = new State();
+        int[] rows = new int[1];
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            fresh.accept(rs);
+            rows[0]++;
+        });
+        for (LocalDate day : archive.dates()) {
+            if (!fresh.days.containsKey(day)) {
+                archive.forEachRow(day, (station, hour, in, out) -> {
+                    fresh.dayForWrite(day).set(fresh.intern(station), hour, in, out);
+                    rows[0]++;
+                });
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            fresh.version = state.version + 1;
+            for (DayColumns day : fresh.days.values()) {
+                day.stamp(fresh.version);
+            }
+            state = fresh;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("StationFlowStore loaded {} rows, {} days, {} stations in {} ms",
+                rows[0], fresh.days.size(), fresh.stations.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 重新加载某一天（导入完成后调用），其余日期保持不变
+     */
+    public void reloadDay(LocalDate day) {
+        if (!loaded) {
+            return;
+        }
+        List<Object[]> rows = jdbcTemplate.query(LOAD_DAY_SQL,
+                (rs, i) -> new Object[]{rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getInt(5)},
+                java.sql.Date.valueOf(day));
+        if (rows.isEmpty() && archive.contains(day)) {
+            archive.forEachRow(day, (station, hour, in, out) -> rows.add(new Object[]{station, hour, in, out}));
+        }
+        lock.writeLock().lock();
+        try {
+            State current = state;
+            current.days.remove(day);
+            current.version++;
+            for (Object[] row : rows) {
+                current.dayForWrite(day).set(current.intern((String) row[0]),
+                        (Integer) row[1], (Integer) row[2], (Integer) row[3]);
+            }
+            if (!rows.isEmpty()) {
+                current.days.get(day).stamp(current.version);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onDataChanged(FlowDataChangedEvent event) {
+        if (event.getDataset() == FlowDataChangedEvent.Dataset.SUBWAY) {
+            event.getDates().forEach(this::reloadDay);
+        }
+    }
+
+    /**
+     * 覆盖写入一个格子（与 subAmount 主键 date+station+time 一一对应）
+     * 尚未加载时忽略，首次加载会从数据库读到最新值
+     */
+    public void put(LocalDate day, String station, int hour, int in, int out) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            state.touch(day).set(state.intern(station), hour, in, out);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在格子上累加（增量数据源使用）
+     */
+    public void add(LocalDate day, String station, int hour, int in, int out) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            state.touch(day).add(state.intern(station), hour, in, out);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在读锁内访问数据，reader 不应把 View 泄露到锁外
+     */
+    public <R> R read(Function<View, R> reader) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return reader.apply(state);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 只读视图
+     */
+    public interface View {
+        int stationCount();
+
+        String station(int ordinal);
+
+        /**
+         * @return 站点序号，未出现过的站点返回 -1
+         */
+        int ordinal(String station);
+
+        NavigableSet<LocalDate> days();
+
+        /**
+         * @return 当天数据，不存在返回 null
+         */
+        DayColumns day(LocalDate date);
+
+        /**
+         * 数据版本：每次写入（含全量重载、整天替换）递增，被改动的日期记下当时的版本（DayColumns.version）
+         */
+        long version();
+    }
+
+    private static final class State implements View {
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> stations = new ArrayList<>();
+        private final TreeMap<LocalDate, DayColumns> days = new TreeMap<>();
+        private final NavigableSet<LocalDate> dayView = Collections.unmodifiableNavigableSet(days.navigableKeySet());
+        private long version;
+
+        void accept(ResultSet rs) throws SQLException {
+            LocalDate date = rs.getDate(1).toLocalDate();
+            dayForWrite(date).set(intern(rs.getString(2)), rs.getInt(3), rs.getInt(4), rs.getInt(5));
+        }
+
+        int intern(String station) {
+            Integer ordinal = ordinals.get(station);
+            if (ordinal == null) {
+                ordinal = stations.size();
+                ordinals.put(station, ordinal);
+                stations.add(station);
+            }
+            return ordinal;
+        }
+
+        DayColumns dayForWrite(LocalDate date) {
+            return days.computeIfAbsent(date, d -> new DayColumns(d, Math.max(stations.size(), 16)));
+        }
+
+        DayColumns touch(LocalDate date) {
+            DayColumns day = dayForWrite(date);
+            day.stamp(++version);
+            return day;
+        }
+
+        @Override
+        public int stationCount() {
+            return stations.size();
+        }
+
+        @Override
+        public String station(int ordinal) {
+            return stations.get(ordinal);
+        }
+
+        @Override
+        public int ordinal(String station) {
+            Integer ordinal = ordinals.get(station);
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        @Override
+        public NavigableSet<LocalDate> days() {
+            return dayView;
+        }
+
+        @Override
+        public DayColumns day(LocalDate date) {
+            return days.get(date);
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+    }
+}
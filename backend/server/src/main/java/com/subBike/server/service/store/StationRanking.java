@@ -0,0 +1,165 @@
+package com.subBike.server.service.store;
+
+import com.subBike.server.entity.dto.FlowMetric;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 站点排行：任意 K、任意指标、单日或日期区间
+ *
+ * 每天按指标维护一份降序排好的站点列表，只在这一天的数据版本变化（导入、实时落库）后重排。
+ * 区间排行用阈值算法（TA）合并各天的列表：逐层向下读每天的第 depth 名，新出现的站点
+ * 经 FlowPrefixCube 直接取区间合计；各天第 depth 名的值之和是所有未出现站点的上界，
+ * 当前第 K 名已经超过这个上界即可停止。热门站点每天都排在前面，通常读几层就能结束，
+ * 不必把整段日期每个站点的合计都算出来再排序。
+ *
+ * 结果按指标降序，并列时按站点序号；只有区间内有数据的站点才会出现。
+ */
+@Component
+public class StationRanking {
+    private static final FlowMetric[] METRICS = FlowMetric.values();
+
+    @Autowired
+    private FlowPrefixCube cube;
+
+    private final Map<LocalDate, DayRanks> days = new ConcurrentHashMap<>();
+
+    /**
+     * 须在 StationFlowStore.read 内调用
+     *
+     * @return 前 k 名的站点序号及其 {进站, 出站} 合计
+     */
+    public List<Entry> top(StationFlowStore.View view, LocalDate from, LocalDate to, FlowMetric metric, int k) {
+        List<Ranked> lists = new ArrayList<>();
+        for (LocalDate day : view.days().subSet(from, true, to, true)) {
+            lists.add(ranked(day, view.day(day), metric, view.stationCount()));
+        }
+        if (days.size() > view.days().size()) {
+            days.keySet().retainAll(view.days());
+        }
+        FlowPrefixCube.Range range = cube.range(view, from, to, 0, StationFlowStore.HOURS - 1);
+
+        int stations = view.stationCount();
+        boolean[] seen = new boolean[stations];
+        long[] scores = new long[stations];
+        // k 来自请求参数，超过站点数没有意义，也不能按它分配堆
+        k = Math.min(k, Math.max(stations, 1));
+        // 堆顶是当前第 k 名
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1,
+                (a, b) -> scores[a] != scores[b] ? Long.compare(scores[a], scores[b]) : Integer.compare(b, a));
+        for (int depth = 0; ; depth++) {
+            boolean more = false;
+            long threshold = 0L;
+            for (Ranked list : lists) {
+                if (depth >= list.stations.length) {
+                    continue;
+                }
+                more = true;
+                int s = list.stations[depth];
+                if (!seen[s]) {
+                    seen[s] = true;
+                    scores[s] = metric.value(range.in(s), range.out(s));
+                    heap.offer(s);
+                    if (heap.size() > k) {
+                        heap.poll();
+                    }
+                }
+                // 不在这一天列表里的站点当天按 0 计，net 可能为负，上界至少取 0
+                long bound = list.values[depth];
+                threshold += list.stations.length < stations ? Math.max(bound, 0L) : bound;
+            }
+            if (!more || heap.size() == k && scores[heap.peek()] > threshold) {
+                break;
+            }
+        }
+
+        List<Entry> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int s = heap.poll();
+            result.add(new Entry(s, range.in(s), range.out(s)));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private Ranked ranked(LocalDate date, DayColumns columns, FlowMetric metric, int stationCount) {
+        DayRanks ranks = days.get(date);
+        if (ranks == null || ranks.version != columns.version()) {
+            ranks = new DayRanks(columns.version());
+            days.put(date, ranks);
+        }
+        Ranked ranked = ranks.byMetric.get(metric.ordinal());
+        if (ranked == null) {
+            ranked = new Ranked(columns, metric, stationCount);
+            ranks.byMetric.set(metric.ordinal(), ranked);
+        }
+        return ranked;
+    }
+
+    public static final class Entry {
+        private final int station;
+        private final long in;
+        private final long out;
+
+        Entry(int station, long in, long out) {
+            this.station = station;
+            this.in = in;
+            this.out = out;
+        }
+
+        public int getStation() {
+            return station;
+        }
+
+        public long getIn() {
+            return in;
+        }
+
+        public long getOut() {
+            return out;
+        }
+    }
+
+    /**
+     * 某天各指标的排行，按需生成；数据版本变化后整体丢弃
+     */
+    private static final class DayRanks {
+        final long version;
+        final AtomicReferenceArray<Ranked> byMetric = new AtomicReferenceArray<>(METRICS.length);
+
+        DayRanks(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * 一天内有数据的站点按指标降序排列，并列时按站点序号
+     */
+    private static final class Ranked {
+        final int[] stations;
+        final long[] values;
+
+        Ranked(DayColumns columns, FlowMetric metric, int stationCount) {
+            List<Integer> present = new ArrayList<>();
+            long[] all = new long[stationCount];
+            for (int s = 0; s < all.length; s++) {
+                if (columns.hasStation(s)) {
+                    all[s] = metric.value(columns.inTotal(s), columns.outTotal(s));
+                    present.add(s);
+                }
+            }
+            present.sort((a, b) -> all[a] != all[b] ? Long.compare(all[b], all[a]) : Integer.compare(a, b));
+            stations = new int[present.size()];
+            values = new long[present.size()];
+            for (int i = 0; i < stations.length; i++) {
+                stations[i] = present.get(i);
+                values[i] = all[stations[i]];
+            }
+        }
+    }
+}
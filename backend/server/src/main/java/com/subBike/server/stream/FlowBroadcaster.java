@@ -0,0 +1,428 @@
+package com.subBike.server.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.entity.dto.FlowDelta;
+import com.subBike.server.entity.dto.TimeAmountDto;
+import com.subBike.server.event.FlowDataChangedEvent;
+import com.subBike.server.service.ISubAmountService;
+import com.subBike.server.util.FlowDates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把某天各站点客流的变化推送给订阅了这一天的仪表盘（SSE）
+ *
+ * 数据变化（CSV 导入、实时窗口写入/更新）后，每个日期只在单独的计算线程上聚合一次
+ * （getMap + getTrend，结果同时进入查询缓存），与上次推送的结果比较得出变化的站点，
+ * 序列化一次后放进每个客户端的有界队列，由固定大小的发送线程池写出，同一客户端同时至多一个任务
+ * （开启 spring.threads.virtual.enabled 时为虚拟线程）。
+ * 客户端队列满（消费跟不上）或一次写出卡住超过 write-timeout 时直接断开，
+ * 浏览器的 EventSource 重连后会重新收到完整快照；卡住的那次写由容器的 socket 写超时结束。
+ * 订阅数按日期和总数限制，超过时 subscribe 返回 null。
+ */
+@Component
+public class FlowBroadcaster implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(FlowBroadcaster.class);
+
+    public static final String SNAPSHOT = "snapshot";
+    public static final String DELTA = "delta";
+
+    @Autowired
+    private ISubAmountService subService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 每个客户端最多积压的事件数
+    @Value("${subway.sse.buffer-size:32}")
+    private int bufferSize;
+
+    // 连接最长保持时间，到期后由浏览器自动重连
+    @Value("${subway.sse.timeout:30m}")
+    private Duration timeout;
+
+    // 单次写出的最长时间，超过即视为客户端已卡住
+    @Value("${subway.sse.write-timeout:PT10S}")
+    private Duration writeTimeout;
+
+    // 订阅总数上限
+    @Value("${subway.sse.max-clients:1000}")
+    private int maxClients;
+
+    // 同一日期的订阅数上限
+    @Value("${subway.sse.max-clients-per-date:200}")
+    private int maxClientsPerDate;
+
+    private final ConcurrentMap<LocalDate, Set<Client>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger clientCount = new AtomicInteger();
+    // 每个日期上次推送的结果，只在计算线程上读写
+    private final Map<LocalDate, Published> published = new HashMap<>();
+    // 已排队但尚未开始计算的日期，重复的变化通知合并成一次计算
+    private final Set<LocalDate> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventId = new AtomicLong();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(named("sse-compute"));
+    // 等待发送的任务数不超过订阅数（每个客户端至多排一个）
+    private final ThreadPoolExecutor senders;
+
+    private final Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("ping").build();
+
+    public FlowBroadcaster(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${subway.sse.sender-threads:16}") int senderThreads) {
+        ThreadFactory threads = virtualThreads
+                ? new VirtualThreadTaskExecutor("sse-sender-").getVirtualThreadFactory()
+                : named("sse-sender");
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threads);
+        senders.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 订阅某天的客流变化：先收到一次 snapshot，之后每次数据变化收到 delta
+     *
+     * @return 订阅数已达上限时返回 null
+     */
+    public SseEmitter subscribe(LocalDate date) {
+        if (clientCount.incrementAndGet() > maxClients) {
+            clientCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Client client = new Client(date, emitter);
+        boolean[] added = new boolean[1];
+        subscribers.compute(date, (d, clients) -> {
+            if (clients == null) {
+                clients = ConcurrentHashMap.newKeySet();
+            }
+            if (clients.size() < maxClientsPerDate) {
+                added[0] = clients.add(client);
+            }
+            return clients.isEmpty() ? null : clients;
+        });
+        if (!added[0]) {
+            clientCount.decrementAndGet();
+            return null;
+        }
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(() -> remove(client));
+        emitter.onError(e -> remove(client));
+        // 在计算线程上取快照，保证它和之后的 delta 是同一条序列
+        worker.execute(() -> sendSnapshot(client));
+        return emitter;
+    }
+
+    public int getClientCount() {
+        return clientCount.get();
+    }
+
+    /**
+     * subAmount 落库后（导入、实时窗口写入）：放在其他监听器之后，此时内存副本已刷新、缓存已失效
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onDataChanged(FlowDataChangedEvent event) {
+        if (event.getDataset() == FlowDataChangedEvent.Dataset.SUBWAY) {
+            publish(event.getDates());
+        }
+    }
+
+    /**
+     * 通知这些日期的数据有变化；没有订阅者的日期不计算
+     */
+    public void publish(Collection<LocalDate> dates) {
+        for (LocalDate date : dates) {
+            if (subscribers.containsKey(date) && pending.add(date)) {
+                worker.execute(() -> {
+                    pending.remove(date);
+                    refresh(date);
+                });
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${subway.sse.heartbeat:PT30S}")
+    public void heartbeat() {
+        // 同时用于发现已断开的连接：写失败时移除
+        for (Set<Client> clients : subscribers.values()) {
+            for (Client client : clients) {
+                client.offer(heartbeat);
+            }
+        }
+    }
+
+    private void sendSnapshot(Client client) {
+        if (client.closed.get()) {
+            return;
+        }
+        try {
+            Published current = published.computeIfAbsent(client.date, this::compute);
+            client.offer(message(SNAPSHOT, current.toDelta(client.date)));
+        } catch (RuntimeException e) {
+            logger.warn("Computing flow snapshot for {} failed: {}", client.date, e.getMessage());
+            client.close();
+        }
+    }
+
+    private void refresh(LocalDate date) {
+        Set<Client> clients = subscribers.get(date);
+        if (clients == null || clients.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Published previous = published.get(date);
+        Published current;
+        try {
+            current = compute(date);
+        } catch (RuntimeException e) {
+            logger.warn("Computing flow delta for {} failed: {}", date, e.getMessage());
+            return;
+        }
+        published.put(date, current);
+        FlowDelta delta = previous == null ? current.toDelta(date) : current.diff(date, previous);
+        if (delta.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> message = message(DELTA, delta);
+        int dropped = 0;
+        for (Client client : clients) {
+            if (!client.offer(message)) {
+                dropped++;
+            }
+        }
+        logger.debug("Broadcast {} station changes for {} to {} clients ({} dropped) in {} ms",
+                delta.getStations().size(), date, clients.size(), dropped, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Published compute(LocalDate date) {
+        java.sql.Date sqlDate = FlowDates.toSqlDate(date);
+        return new Published(subService.getMap(sqlDate), subService.getTrend(sqlDate));
+    }
+
+    /**
+     * 序列化一次，所有客户端共用同一份数据
+     */
+    private Set<ResponseBodyEmitter.DataWithMediaType> message(String name, FlowDelta delta) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return SseEmitter.event().id(Long.toString(eventId.incrementAndGet())).name(name)
+                .data(json, MediaType.APPLICATION_JSON).build();
+    }
+
+    private void remove(Client client) {
+        client.closed.set(true);
+        subscribers.computeIfPresent(client.date, (date, clients) -> {
+            if (clients.remove(client)) {
+                clientCount.decrementAndGet();
+            }
+            return clients.isEmpty() ? null : clients;
+        });
+        if (!subscribers.containsKey(client.date) && !worker.isShutdown()) {
+            // 最后一个订阅者离开，丢弃这一天的结果
+            worker.execute(() -> {
+                if (!subscribers.containsKey(client.date)) {
+                    published.remove(client.date);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+        for (Set<Client> clients : subscribers.values()) {
+            for (Client client : clients) {
+                client.close();
+            }
+        }
+        senders.shutdownNow();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 上次推送的结果：站点 → {进站, 出站}，以及当天曲线
+     */
+    private static final class Published {
+        final Map<String, long[]> stations = new LinkedHashMap<>();
+        final List<TimeAmountDto> trend;
+
+        Published(List<AmountDto> map, List<TimeAmountDto> trend) {
+            for (AmountDto row : map) {
+                stations.put(row.getStation(), new long[]{row.getInNum(), row.getOutNum()});
+            }
+            this.trend = trend;
+        }
+
+        FlowDelta toDelta(LocalDate date) {
+            List<String> names = new ArrayList<>(stations.size());
+            long[] in = new long[stations.size()];
+            long[] out = new long[stations.size()];
+            int i = 0;
+            for (Map.Entry<String, long[]> entry : stations.entrySet()) {
+                names.add(entry.getKey());
+                in[i] = entry.getValue()[0];
+                out[i] = entry.getValue()[1];
+                i++;
+            }
+            return new FlowDelta(date.toString(), names, in, out, trend);
+        }
+
+        /**
+         * 与上次结果相比数值变化的站点（站点只会增加，不会消失）；曲线有变化时整条带上
+         */
+        FlowDelta diff(LocalDate date, Published previous) {
+            List<String> names = new ArrayList<>();
+            long[] in = new long[stations.size()];
+            long[] out = new long[stations.size()];
+            for (Map.Entry<String, long[]> entry : stations.entrySet()) {
+                long[] now = entry.getValue();
+                long[] before = previous.stations.get(entry.getKey());
+                if (before == null || before[0] != now[0] || before[1] != now[1]) {
+                    in[names.size()] = now[0];
+                    out[names.size()] = now[1];
+                    names.add(entry.getKey());
+                }
+            }
+            return new FlowDelta(date.toString(), names, Arrays.copyOf(in, names.size()),
+                    Arrays.copyOf(out, names.size()), sameTrend(trend, previous.trend) ? null : trend);
+        }
+
+        private static boolean sameTrend(List<TimeAmountDto> a, List<TimeAmountDto> b) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                TimeAmountDto x = a.get(i);
+                TimeAmountDto y = b.get(i);
+                if (!Objects.equals(x.getTime(), y.getTime()) || !Objects.equals(x.getInNum(), y.getInNum())
+                        || !Objects.equals(x.getOutNum(), y.getOutNum())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 一个连接：有界队列 + 至多一个发送任务在写，慢客户端最多占住一个发送线程直到 write-timeout 后被断开
+     */
+    private final class Client {
+        final LocalDate date;
+        final SseEmitter emitter;
+        final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+        // 正在进行的写出开始的时刻（nanoTime），没有在写时为 0
+        volatile long writingSince;
+
+        Client(LocalDate date, SseEmitter emitter) {
+            this.date = date;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * @return false 表示队列已满，客户端被断开
+         */
+        boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> message) {
+            if (closed.get()) {
+                return false;
+            }
+            long since = writingSince;
+            if (since != 0L && System.nanoTime() - since > writeTimeout.toNanos()) {
+                logger.info("Dropping stalled SSE client for {}: write blocked for {} ms",
+                        date, (System.nanoTime() - since) / 1_000_000);
+                close();
+                return false;
+            }
+            if (!queue.offer(message)) {
+                logger.info("Dropping slow SSE client for {}: {} events pending", date, queue.size());
+                close();
+                return false;
+            }
+            schedule();
+            return true;
+        }
+
+        /**
+         * 标记关闭；正在写的发送任务结束后由它完成 emitter（emitter 的写和关闭互斥，不能在这里等）
+         */
+        void close() {
+            remove(this);
+            queue.clear();
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> message;
+                while (!closed.get() && (message = queue.poll()) != null) {
+                    writingSince = System.nanoTime();
+                    emitter.send(message);
+                    writingSince = 0L;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 连接已断开或已超时
+                remove(this);
+            } finally {
+                writingSince = 0L;
+                draining.set(false);
+            }
+            if (closed.get()) {
+                if (completed.compareAndSet(false, true)) {
+                    try {
+                        emitter.complete();
+                    } catch (IllegalStateException e) {
+                        // 容器已先行结束了这个异步请求
+                    }
+                }
+            } else if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
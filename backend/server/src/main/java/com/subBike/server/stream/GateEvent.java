@@ -0,0 +1,69 @@
+package com.subBike.server.stream;
+
+import java.time.LocalDateTime;
+
+/**
+ * 闸机进/出站事件，Kafka 消息体为 JSON：
+ * {"station":"西直门","gate":"A1","direction":"IN","time":"2019-05-01T08:15:30","count":1}
+ * time 缺省时使用消息时间戳，count 缺省为 1。
+ */
+public class GateEvent {
+    public enum Direction {
+        IN, OUT
+    }
+
+    private String station;
+    private String gate;
+    private Direction direction;
+    private LocalDateTime time;
+    private Integer count;
+
+    public GateEvent() {}
+
+    public GateEvent(String station, Direction direction, LocalDateTime time, int count) {
+        this.station = station;
+        this.direction = direction;
+        this.time = time;
+        this.count = count;
+    }
+
+    public String getStation() {
+        return station;
+    }
+
+    public void setStation(String station) {
+        this.station = station;
+    }
+
+    public String getGate() {
+        return gate;
+    }
+
+    public void setGate(String gate) {
+        this.gate = gate;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public void setTime(LocalDateTime time) {
+        this.time = time;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,54 @@
+package com.subBike.server.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 消费闸机事件，写入 LiveFlowWindows
+ * 连接参数使用 spring.kafka.*，主题与消费组见 subway.stream.*
+ */
+@Component
+@ConditionalOnProperty(name = "subway.stream.enabled", havingValue = "true")
+public class GateEventListener {
+    private static final Logger logger = LoggerFactory.getLogger(GateEventListener.class);
+
+    @Autowired
+    private LiveFlowWindows windows;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "${subway.stream.topic:gate-events}",
+            groupId = "${subway.stream.group-id:subbike-live-flow}",
+            concurrency = "${subway.stream.concurrency:1}")
+    public void onMessage(ConsumerRecord<String, String> record) {
+        GateEvent event;
+        try {
+            event = objectMapper.readValue(record.value(), GateEvent.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Skipping malformed gate event at {}-{}@{}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getOriginalMessage());
+            return;
+        }
+        if (event.getStation() == null || event.getDirection() == null) {
+            logger.warn("Skipping gate event without station/direction at {}-{}@{}",
+                    record.topic(), record.partition(), record.offset());
+            return;
+        }
+        if (event.getTime() == null) {
+            event.setTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp()), ZoneId.systemDefault()));
+        }
+        windows.add(event);
+    }
+}
@@ -0,0 +1,108 @@
+package com.subBike.server.stream;
+
+import com.subBike.server.cache.FlowCacheInvalidator;
+import com.subBike.server.event.FlowDataChangedEvent;
+import com.subBike.server.util.FlowDates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 定时把已关闭的小时窗口写入 subAmount
+ *
+ * 同一小时的迟到事件会形成新的窗口，再次写入时累加到已有行上；
+ * 之后导入的 CSV 以覆盖方式 upsert，以批量数据为准。
+ * 写入后发布 FlowDataChangedEvent，由 FlowRollupService 分配 station_id 并重算汇总表。
+ */
+@Component
+@ConditionalOnProperty(name = "subway.stream.enabled", havingValue = "true")
+public class LiveFlowFlusher implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(LiveFlowFlusher.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO sub_amount (date, station, time, in_num, out_num) VALUES (?, ?, ?, ?, ?)"
+                    + " ON DUPLICATE KEY UPDATE in_num = in_num + VALUES(in_num), out_num = out_num + VALUES(out_num)";
+
+    @Autowired
+    private LiveFlowWindows windows;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private FlowCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private FlowBroadcaster broadcaster;
+
+    // 窗口结束后再等待多久（事件时间）才关闭，期间到达的迟到事件仍计入该窗口
+    @Value("${subway.stream.allowed-lateness:5m}")
+    private Duration allowedLateness;
+
+    @Scheduled(fixedDelayString = "${subway.stream.flush-interval:PT10S}")
+    public void tick() {
+        // 当前小时的数据有变化：失效这些日期的查询缓存，下次查询重新叠加，并推送给订阅的仪表盘
+        if (windows.clearDirty()) {
+            Set<LocalDate> open = windows.openDates();
+            cacheInvalidator.evictDates(FlowDataChangedEvent.Dataset.SUBWAY, open);
+            broadcaster.publish(open);
+        }
+        LocalDateTime watermark = windows.watermark(allowedLateness.getSeconds());
+        if (watermark != null) {
+            flush(windows.close(watermark));
+        }
+    }
+
+    /**
+     * 停机时把未关闭的窗口一并写入
+     */
+    @Override
+    public void destroy() {
+        flush(windows.close(null));
+    }
+
+    private void flush(List<LiveFlowWindows.ClosedWindow> closed) {
+        if (closed.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>();
+        Set<LocalDate> dates = new TreeSet<>();
+        for (LiveFlowWindows.ClosedWindow window : closed) {
+            LocalDate date = window.getHour().toLocalDate();
+            dates.add(date);
+            java.sql.Date sqlDate = FlowDates.toSqlDate(date);
+            int hour = window.getHour().getHour();
+            for (Map.Entry<String, long[]> entry : window.getCounts().entrySet()) {
+                args.add(new Object[]{sqlDate, entry.getKey(), hour, entry.getValue()[0], entry.getValue()[1]});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+        } catch (RuntimeException e) {
+            logger.warn("Flushing {} live windows failed, will retry: {}", closed.size(), e.getMessage());
+            windows.restore(closed);
+            return;
+        }
+        logger.info("Flushed {} live windows ({} rows) for {}", closed.size(), args.size(), dates);
+        publisher.publishEvent(new FlowDataChangedEvent(this, FlowDataChangedEvent.Dataset.SUBWAY, dates));
+    }
+}
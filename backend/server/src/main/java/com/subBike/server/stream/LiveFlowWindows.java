@@ -0,0 +1,307 @@
+package com.subBike.server.stream;
+
+import com.subBike.server.entity.dto.AmountDto;
+import com.subBike.server.entity.dto.DateAmountDto;
+import com.subBike.server.entity.dto.TimeAmountDto;
+import com.subBike.server.util.FlowDates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 实时闸机事件的小时滚动窗口：小时 → 站点 → 进/出站人数
+ *
+ * 窗口关闭前只存在于内存，由 LiveFlowFlusher 写入 subAmount 后移除；
+ * SubAmountService 的读方法把尚未落库的窗口叠加到查询结果上。
+ * 未启用实时接入时始终为空，叠加逻辑直接返回原结果。
+ */
+@Component
+public class LiveFlowWindows {
+
+    private final ConcurrentNavigableMap<LocalDateTime, Window> windows = new ConcurrentSkipListMap<>();
+    // 写入事件持读锁（可并发），摘除窗口持写锁，保证摘除后不会再有事件落到旧窗口里
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAccumulator maxEventSecond = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // 水位最多推进到当前时间之后多久：时钟错误的闸机发来一条未来事件，不会一次关闭所有未结束的窗口
+    @Value("${subway.stream.max-event-ahead:5m}")
+    private Duration maxEventAhead;
+
+    public void add(GateEvent event) {
+        LocalDateTime hour = event.getTime().truncatedTo(ChronoUnit.HOURS);
+        int count = event.getCount() == null ? 1 : event.getCount();
+        lock.readLock().lock();
+        try {
+            Counts counts = windows.computeIfAbsent(hour, h -> new Window())
+                    .stations.computeIfAbsent(event.getStation(), s -> new Counts());
+            (event.getDirection() == GateEvent.Direction.OUT ? counts.out : counts.in).add(count);
+        } finally {
+            lock.readLock().unlock();
+        }
+        // 事件本身照常计数，只限制它对水位的影响（事件时间与 now() 同为本地时间）
+        long bound = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) + maxEventAhead.getSeconds();
+        maxEventSecond.accumulate(Math.min(event.getTime().toEpochSecond(ZoneOffset.UTC), bound));
+        dirty.set(true);
+    }
+
+    /**
+     * 事件时间水位：已见到的最大事件时间（不超过到达时的当前时间 + max-event-ahead）减去允许的迟到时长；
+     * 还没有事件时返回 null
+     */
+    public LocalDateTime watermark(long allowedLatenessSeconds) {
+        long max = maxEventSecond.get();
+        if (max == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(max - allowedLatenessSeconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 摘除结束时间不晚于 watermark 的窗口；watermark 为 null 时摘除全部
+     */
+    public List<ClosedWindow> close(LocalDateTime watermark) {
+        List<ClosedWindow> closed = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            Iterator<Map.Entry<LocalDateTime, Window>> it = windows.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<LocalDateTime, Window> entry = it.next();
+                if (watermark != null && entry.getKey().plusHours(1).isAfter(watermark)) {
+                    break;
+                }
+                closed.add(new ClosedWindow(entry.getKey(), entry.getValue().snapshot()));
+                it.remove();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return closed;
+    }
+
+    /**
+     * 写库失败时放回，下次重试
+     */
+    public void restore(List<ClosedWindow> closed) {
+        lock.readLock().lock();
+        try {
+            for (ClosedWindow window : closed) {
+                Window target = windows.computeIfAbsent(window.hour, h -> new Window());
+                window.counts.forEach((station, c) -> {
+                    Counts counts = target.stations.computeIfAbsent(station, s -> new Counts());
+                    counts.in.add(c[0]);
+                    counts.out.add(c[1]);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * @return 自上次调用以来是否有新事件
+     */
+    public boolean clearDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    public boolean isEmpty() {
+        return windows.isEmpty();
+    }
+
+    public Set<LocalDate> openDates() {
+        Set<LocalDate> dates = new TreeSet<>();
+        for (LocalDateTime hour : windows.keySet()) {
+            dates.add(hour.toLocalDate());
+        }
+        return dates;
+    }
+
+    /**
+     * 叠加到按站点汇总的结果（/date、/map），新出现的站点追加在末尾
+     */
+    public List<AmountDto> overlayStations(Date date, List<AmountDto> rows) {
+        Map<String, long[]> live = stationTotals(FlowDates.toLocalDate(date));
+        if (live.isEmpty()) {
+            return rows;
+        }
+        List<AmountDto> merged = new ArrayList<>(rows.size() + live.size());
+        for (AmountDto row : rows) {
+            long[] c = live.remove(row.getStation());
+            merged.add(c == null ? row
+                    : new AmountDto(row.getStation(), row.getInNum() + c[0], row.getOutNum() + c[1]));
+        }
+        live.forEach((station, c) -> merged.add(new AmountDto(station, c[0], c[1])));
+        return merged;
+    }
+
+    /**
+     * 叠加到按小时汇总的结果（/trend），按小时排序
+     */
+    public List<TimeAmountDto> overlayHours(Date date, List<TimeAmountDto> rows) {
+        LocalDate day = FlowDates.toLocalDate(date);
+        SortedMap<Integer, long[]> live = new TreeMap<>();
+        for (Map.Entry<LocalDateTime, Window> entry : windows.entrySet()) {
+            if (entry.getKey().toLocalDate().equals(day)) {
+                live.put(entry.getKey().getHour(), entry.getValue().total(null));
+            }
+        }
+        if (live.isEmpty()) {
+            return rows;
+        }
+        SortedMap<Integer, TimeAmountDto> merged = new TreeMap<>();
+        for (TimeAmountDto row : rows) {
+            merged.put(row.getTime(), row);
+        }
+        live.forEach((hour, c) -> {
+            TimeAmountDto row = merged.get(hour);
+            merged.put(hour, row == null ? new TimeAmountDto(hour, c[0], c[1])
+                    : new TimeAmountDto(hour, row.getInNum() + c[0], row.getOutNum() + c[1]));
+        });
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * 叠加到按日期汇总的结果，按日期排序
+     *
+     * @param station 为 null 时为全网合计
+     * @param from    为 null 时不限日期范围
+     */
+    public List<DateAmountDto> overlayDays(List<DateAmountDto> rows, String station, Date from, Date to) {
+        if (windows.isEmpty()) {
+            return rows;
+        }
+        LocalDate start = from == null ? null : FlowDates.toLocalDate(from);
+        LocalDate end = to == null ? null : FlowDates.toLocalDate(to);
+        SortedMap<LocalDate, long[]> live = new TreeMap<>();
+        for (Map.Entry<LocalDateTime, Window> entry : windows.entrySet()) {
+            LocalDate day = entry.getKey().toLocalDate();
+            if ((start != null && day.isBefore(start)) || (end != null && day.isAfter(end))) {
+                continue;
+            }
+            long[] c = entry.getValue().total(station);
+            if (c[0] != 0 || c[1] != 0 || station == null) {
+                long[] sum = live.computeIfAbsent(day, d -> new long[2]);
+                sum[0] += c[0];
+                sum[1] += c[1];
+            }
+        }
+        if (live.isEmpty()) {
+            return rows;
+        }
+        SortedMap<LocalDate, DateAmountDto> merged = new TreeMap<>();
+        for (DateAmountDto row : rows) {
+            merged.put(FlowDates.toLocalDate(row.getDate()), row);
+        }
+        live.forEach((day, c) -> {
+            DateAmountDto row = merged.get(day);
+            merged.put(day, row == null ? new DateAmountDto(FlowDates.toSqlDate(day), c[0], c[1])
+                    : new DateAmountDto(row.getDate(), row.getInNum() + c[0], row.getOutNum() + c[1]));
+        });
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * 逐个访问 [from, to] 内尚未落库的站点×小时格子（/heatmap）
+     */
+    public void forEachCell(LocalDate from, LocalDate to, CellVisitor visitor) {
+        if (windows.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<LocalDateTime, Window> entry
+                : windows.subMap(from.atStartOfDay(), to.plusDays(1).atStartOfDay()).entrySet()) {
+            int hour = entry.getKey().getHour();
+            entry.getValue().stations.forEach((station, c) -> visitor.accept(station, hour, c.in.sum(), c.out.sum()));
+        }
+    }
+
+    public boolean covers(Date date) {
+        if (windows.isEmpty()) {
+            return false;
+        }
+        LocalDateTime start = FlowDates.toLocalDate(date).atStartOfDay();
+        return !windows.subMap(start, start.plusDays(1)).isEmpty();
+    }
+
+    private Map<String, long[]> stationTotals(LocalDate day) {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        if (windows.isEmpty()) {
+            return totals;
+        }
+        LocalDateTime start = day.atStartOfDay();
+        for (Window window : windows.subMap(start, start.plusDays(1)).values()) {
+            window.stations.forEach((name, counts) -> {
+                long[] sum = totals.computeIfAbsent(name, s -> new long[2]);
+                sum[0] += counts.in.sum();
+                sum[1] += counts.out.sum();
+            });
+        }
+        return totals;
+    }
+
+    @FunctionalInterface
+    public interface CellVisitor {
+        void accept(String station, int hour, long in, long out);
+    }
+
+    private static final class Window {
+        final ConcurrentHashMap<String, Counts> stations = new ConcurrentHashMap<>();
+
+        Map<String, long[]> snapshot() {
+            Map<String, long[]> copy = new HashMap<>(stations.size() * 2);
+            stations.forEach((station, c) -> copy.put(station, new long[]{c.in.sum(), c.out.sum()}));
+            return copy;
+        }
+
+        long[] total(String station) {
+            long[] sum = new long[2];
+            stations.forEach((name, c) -> {
+                if (station == null || station.equals(name)) {
+                    sum[0] += c.in.sum();
+                    sum[1] += c.out.sum();
+                }
+            });
+            return sum;
+        }
+    }
+
+    private static final class Counts {
+        final LongAdder in = new LongAdder();
+        final LongAdder out = new LongAdder();
+    }
+
+    /**
+     * 已摘除的窗口：小时起点 + 站点 → {进站, 出站}
+     */
+    public static final class ClosedWindow {
+        final LocalDateTime hour;
+        final Map<String, long[]> counts;
+
+        ClosedWindow(LocalDateTime hour, Map<String, long[]> counts) {
+            this.hour = hour;
+            this.counts = counts;
+        }
+
+        public LocalDateTime getHour() {
+            return hour;
+        }
+
+        public Map<String, long[]> getCounts() {
+            return counts;
+        }
+    }
+}
@@ -5,26 +5,25 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Date;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class CsvImportApplication {
     // 数据库连接信息
 
     private static final String DB_URL =
-            "jdbc:mysql://39.96.195.232:3306/subbike?useUnicode=true&characterEncoding=utf8";
+            "jdbc:mysql://39.96.195.232:3306/subbike?useUnicode=true&characterEncoding=utf8"
+                    + "&rewriteBatchedStatements=true&useServerPrepStmts=false";
     private static final String DB_USER = "admin";
     private static final String DB_PASSWORD = "password";
 
-    // 日期格式：匹配文件名中的 "2019-May-01"
-    private static final SimpleDateFormat FILE_DATE_FORMAT = new SimpleDateFormat("yyyy-MMM-dd", Locale.US);
-
-    // SQL插入语句（批量执行）
-    private static final String INSERT_SQL =
-            "INSERT INTO sub_amount (date, station, time, in_num, out_num) " +
-                    "VALUES (?, ?, ?, ?, ?)";
+    // 每条多行 INSERT 的行数
+    private static final int BATCH_ROWS = 1000;
+    // 解析线程与写入线程之间的队列容量（批）
+    private static final int QUEUE_CAPACITY = 64;
 
     public static void main(String[] args) {
         System.out.println("===== 开始CSV导入程序 =====");
@@ -52,7 +51,7 @@ public class CsvImportApplication {
     /**
      * 导入指定目录下的所有CSV文件
      */
-    public void importCsvFiles(String directoryPath) throws IOException, ParseException, SQLException {
+    public void importCsvFiles(String directoryPath) throws IOException, SQLException {
         File directory = new File(directoryPath);
         System.out.println("检查目录是否存在：" + directory.getAbsolutePath());
 
@@ -63,193 +62,114 @@ public class CsvImportApplication {
             throw new IOException("路径不是目录：" + directoryPath);
         }
 
-        File[] files = directory.listFiles((dir, name) -> {
-            boolean match = name.startsWith("station_flow_") && name.endsWith(".csv");
-            if (match) {
-                System.out.println("匹配到CSV文件：" + name);
-            }
-            return match;
-        });
+        File[] files = directory.listFiles((dir, name) -> StationFlowCsvParser.isStationFlowFile(name));
 
         if (files == null || files.length == 0) {
             System.out.println("警告：未找到符合条件的CSV文件（前缀：station_flow_，后缀：.csv）");
             return;
         }
-        System.out.println("共找到 " + files.length + " 个CSV文件，准备开始导入");
+        System.out.println("共找到 " + files.length + " 个CSV文件");
 
-        // 批量处理所有文件
+        // 对照导入清单：未变化的跳过，中断过的从已提交位置继续
+        ImportManifest manifest = new ImportManifest();
+        List<ImportManifest.Plan> plans = new ArrayList<>();
+        int resumed = 0;
+        int replaced = 0;
         try (Connection conn = getConnection()) {
-            System.out.println("数据库连接成功，自动提交模式：" + conn.getAutoCommit());
-            conn.setAutoCommit(false);
-            System.out.println("已关闭自动提交，启用事务批量处理");
-
+            manifest.load(conn);
             for (File file : files) {
-                System.out.println("\n===== 开始处理文件：" + file.getName() + " =====");
-                importSingleCsv(file, conn);
-                conn.commit();
-                System.out.println("文件 " + file.getName() + " 提交成功");
+                ImportManifest.Plan plan = manifest.plan(conn, file);
+                if (plan != null) {
+                    manifest.begin(conn, plan);
+                    plans.add(plan);
+                    if (plan.isResume()) {
+                        resumed++;
+                    } else if (plan.isReplace()) {
+                        replaced++;
+                    }
+                }
             }
+        }
+        System.out.println("未变化跳过 " + (files.length - plans.size()) + " 个，续传 " + resumed
+                + " 个，内容变化重导 " + replaced + " 个，待导入 " + plans.size() + " 个");
+        if (plans.isEmpty()) {
+            return;
+        }
+        List<CsvIngestPipeline.ImportTask> tasks = new ArrayList<>(plans.size());
+        for (ImportManifest.Plan plan : plans) {
+            tasks.add(plan.getTask());
+        }
+
+        // 并行流水线：解析线程读取文件，写入线程批量插入
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int parsers = Integer.getInteger("import.parsers", Math.max(1, Math.min(cpus, tasks.size())));
+        int writers = Integer.getInteger("import.writers", 4);
+        CsvIngestPipeline pipeline = new CsvIngestPipeline(this::getConnection,
+                parsers, writers, BATCH_ROWS, QUEUE_CAPACITY);
+        System.out.println("解析线程：" + parsers + "，写入线程：" + writers + "，每批 " + BATCH_ROWS + " 行");
+        try {
+            CsvIngestPipeline.Stats stats = pipeline.run(tasks, manifest);
+            System.out.println(stats);
+            // 汇总表重算后才标记 DONE：运行中的服务端（ExternalImportWatcher）据此刷新缓存，
+            // 不会把旧的汇总结果重新放回缓存；重算失败时重新运行会再次重算
+            refreshRollups(tasks);
+            try (Connection conn = getConnection()) {
+                for (ImportManifest.Plan plan : plans) {
+                    manifest.done(conn, plan);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("导入被中断", e);
         } catch (SQLException e) {
-            System.err.println("数据库操作失败，准备回滚事务：" + e.getMessage());
+            System.err.println("数据库操作失败，未提交的批次已回滚，重新运行将从已提交位置继续：" + e.getMessage());
+            System.err.println(pipeline.getStats());
             throw e; // 抛出异常让上层处理
         }
     }
 
     /**
-     * 导入单个CSV文件
+     * 为导入日期的数据分配 station_id，并重算对应的汇总表（station_daily_flow / daily_flow / hourly_flow）
+     * 运行中的服务端轮询 import_manifest 发现新完成的文件后刷新内存副本和查询缓存。
      */
-    private void importSingleCsv(File file, Connection conn) throws IOException, ParseException, SQLException {
-        // 1. 从文件名提取日期
-        String fileName = file.getName();
-        System.out.println("处理文件：" + fileName + "（路径：" + file.getAbsolutePath() + "）");
-
-        String dateStr = fileName.replace("station_flow_", "").replace(".csv", "");
-        System.out.println("从文件名提取日期字符串：" + dateStr);
-
-        java.util.Date utilDate = FILE_DATE_FORMAT.parse(dateStr);
-        Date sqlDate = new Date(utilDate.getTime());
-        System.out.println("解析日期结果：文件名日期字符串 -> " + dateStr + "，转换为SQL日期 -> " + sqlDate);
-
-        // 读取CSV内容并批量插入
-        try (
-                // 先创建 PushbackReader 处理 BOM 头
-                PushbackReader pushbackReader = new PushbackReader(
-                        new InputStreamReader(new FileInputStream(file), "UTF-8"), 1);
-                // 再用 BufferedReader 包装 PushbackReader（保持 BufferedReader 类型）
-                BufferedReader reader = new BufferedReader(pushbackReader);
-                PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)
-        ) {
-            System.out.println("文件读取编码：UTF-8，准备检测BOM头");
-
-            // 检测并跳过UTF-8 BOM头
-            if (pushbackReader.ready()) {
-                int firstChar = pushbackReader.read();
-                if (firstChar == 0xFEFF) {
-                    System.out.println("检测到UTF-8 BOM头，已自动跳过");
-                } else {
-                    pushbackReader.unread(firstChar);
-                    System.out.println("未检测到BOM头，第一个字符ASCII值：" + firstChar + "（字符：" + (char) firstChar + "）");
-                }
-            }
-
-            String line;
-            boolean isFirstLine = true;
-            int count = 0;
-            int batchSize = 1000;
-            System.out.println("批处理大小：" + batchSize + "条/次");
-
-            while ((line = reader.readLine()) != null) {
-                // 跳过表头
-                if (isFirstLine) {
-                    System.out.println("跳过表头行：" + line);
-                    isFirstLine = false;
-                    continue;
-                }
-
-                // 解析CSV行
-                String[] values = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                if (values.length < 4) {
-                    System.err.printf("无效的CSV行（文件: %s, 行内容: %s，字段数：%d）%n",
-                            fileName, line, values.length);
-                    continue;
-                }
-
-                try {
-                    // 调试：打印前3行数据（含字段值和长度）
-                    if (count < 3) {
-                        System.out.printf("第%d行数据解析结果：字段数=%d，值分别为：%n",
-                                count + 1, values.length, values);
-                        for (int i = 0; i < values.length; i++) {
-                            System.out.printf("  字段%d：内容='%s'，长度=%d，ASCII码（前3位）：%s%n",
-                                    i, values[i].trim(), values[i].length(),
-                                    getFirst3Ascii(values[i].trim()));
+    private void refreshRollups(List<CsvIngestPipeline.ImportTask> tasks) throws SQLException {
+        Set<LocalDate> dates = new TreeSet<>();
+        for (CsvIngestPipeline.ImportTask task : tasks) {
+            dates.add(StationFlowCsvParser.dateOf(task.getFile().getName()));
+        }
+        long start = System.nanoTime();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (LocalDate date : dates) {
+                    for (String sql : FlowRollupSql.REBUILD_DAY) {
+                        try (PreparedStatement ps = conn.prepareStatement(FlowRollupSql.jdbc(sql))) {
+                            ps.setDate(1, FlowDates.toSqlDate(date));
+                            ps.executeUpdate();
                         }
                     }
-
-                    // 设置SQL参数
-                    pstmt.setDate(1, sqlDate);
-                    pstmt.setString(2, values[0].trim());
-                    pstmt.setInt(3, Integer.parseInt(values[1].trim()));
-                    pstmt.setInt(4, Integer.parseInt(values[2].trim()));
-                    pstmt.setInt(5, Integer.parseInt(values[3].trim()));
-
-                    // 调试：打印第一条数据的SQL参数
-                    if (count == 0) {
-                        System.out.println("第一条数据的SQL参数：");
-                        System.out.println("  date: " + sqlDate);
-                        System.out.println("  station: '" + values[0].trim() + "'（原始值：'" + values[0] + "'）");
-                        System.out.println("  time: " + values[1].trim());
-                        System.out.println("  in_num: " + values[2].trim());
-                        System.out.println("  out_num: " + values[3].trim());
-                    }
-
-                    pstmt.addBatch();
-                    count++;
-
-                    if (count % batchSize == 0) {
-                        int[] results = pstmt.executeBatch();
-                        System.out.printf("已处理 %d 条记录（文件: %s），批处理影响行数：%d%n",
-                                count, fileName, results.length);
-                    }
-                } catch (NumberFormatException e) {
-                    System.err.printf("数字转换错误（文件: %s, 行号: %d, 行内容: %s, 错误: %s）%n",
-                            fileName, count + 1, line, e.getMessage());
+                    conn.commit();
                 }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
-
-            // 执行剩余批处理
-            if (count % batchSize != 0) {
-                int[] results = pstmt.executeBatch();
-                System.out.printf("处理剩余记录：%d 条，批处理影响行数：%d%n",
-                        count % batchSize, results.length);
-            }
-
-            System.out.printf("文件导入完成：%s，共处理 %d 条数据%n", fileName, count);
-
-        } catch (IOException e) {
-            System.err.printf("文件读取错误（文件: %s, 错误: %s）%n", fileName, e.getMessage());
-            throw e; // 抛出异常触发事务回滚
-        } catch (SQLException e) {
-            System.err.printf("SQL执行错误（文件: %s, 错误: %s）%n", fileName, e.getMessage());
-            throw e; // 抛出异常触发事务回滚
         }
+        System.out.println("汇总表已更新：" + dates.size() + " 天，耗时 "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
     }
 
     /**
-     * 获取数据库连接
+     * 获取数据库连接（每个写入线程一个）
      */
     private Connection getConnection() throws SQLException {
         try {
             // 新版本的驱动类名
             Class.forName("com.mysql.cj.jdbc.Driver");
-            System.out.println("MySQL驱动加载成功");
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL驱动加载失败: " + e.getMessage());
             throw new SQLException("MySQL驱动未找到", e);
         }
-
-        System.out.println("尝试连接数据库：" + DB_URL.split("\\?")[0] + "，用户：" + DB_USER);
-        Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-        System.out.println("数据库连接成功：" + conn);
-        return conn;
-    }
-
-    /**
-     * 辅助方法：获取字符串前3个字符的ASCII码（用于调试乱码）
-     */
-    private String getFirst3Ascii(String str) {
-        if (str == null || str.isEmpty()) {
-            return "空字符串";
-        }
-        StringBuilder sb = new StringBuilder();
-        int len = Math.min(str.length(), 3);
-        for (int i = 0; i < len; i++) {
-            char c = str.charAt(i);
-            sb.append((int) c);
-            if (i < len - 1) {
-                sb.append(", ");
-            }
-        }
-        return sb.toString();
+        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,441 @@
+package com.subBike.server.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并行 CSV 导入流水线：解析线程 → 有界队列 → 写入线程
+ *
+ * 解析线程按文件并行，用内存映射 + StationFlowCsvParser 解析，每攒够 batchRows 行放入队列；
+ * 写入线程各持有一个连接，把一批数据拼成一条多行 INSERT ... VALUES (...),(...) 执行并提交。
+ * 队列满时解析线程阻塞，从而限制内存占用。
+ *
+ * 写入为 upsert（ON DUPLICATE KEY UPDATE），重复导入同一文件结果不变。
+ * 每个文件的批次按顺序编号，提交后推进该文件"连续已提交"的偏移量并通知 ProgressListener，
+ * 中断后可从该偏移量继续导入。
+ */
+public class CsvIngestPipeline {
+
+    /**
+     * 获取数据库连接，每个写入线程调用一次
+     */
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO sub_amount (date, station, time, in_num, out_num) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?)";
+    private static final String UPSERT_SUFFIX =
+            " ON DUPLICATE KEY UPDATE in_num = VALUES(in_num), out_num = VALUES(out_num)";
+
+    /**
+     * 某个文件的已提交位置向前推进时回调（在写入线程中，使用该线程的连接，调用后由流水线提交）
+     */
+    public interface ProgressListener {
+        void committed(Connection conn, ImportTask task, long offset, long rows) throws SQLException;
+    }
+
+    private final ConnectionFactory connectionFactory;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int batchRows;
+    private final int queueCapacity;
+
+    private final Stats stats = new Stats();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private volatile ProgressListener listener;
+
+    public CsvIngestPipeline(ConnectionFactory connectionFactory, int parserThreads, int writerThreads,
+                             int batchRows, int queueCapacity) {
+        this.connectionFactory = connectionFactory;
+        this.parserThreads = parserThreads;
+        this.writerThreads = writerThreads;
+        this.batchRows = batchRows;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * 从头导入全部文件
+     */
+    public Stats run(List<File> files) throws IOException, SQLException, InterruptedException {
+        List<ImportTask> tasks = new ArrayList<>(files.size());
+        for (File file : files) {
+            tasks.add(new ImportTask(file, 0L, 0L));
+        }
+        return run(tasks, null);
+    }
+
+    /**
+     * 导入全部任务，阻塞直到完成；任一线程失败则停止并抛出首个异常
+     *
+     * @param listener 可为 null
+     */
+    public Stats run(List<ImportTask> tasks, ProgressListener listener)
+            throws IOException, SQLException, InterruptedException {
+        this.listener = listener;
+        BlockingQueue<RowBatch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, named("csv-parser"));
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads, named("csv-writer"));
+        stats.start = System.nanoTime();
+
+        List<Future<?>> writerFutures = new ArrayList<>();
+        for (int i = 0; i < writerThreads; i++) {
+            writerFutures.add(writers.submit(() -> write(queue)));
+        }
+        List<Future<?>> parserFutures = new ArrayList<>();
+        for (ImportTask task : tasks) {
+            parserFutures.add(parsers.submit(() -> parse(task, queue)));
+        }
+
+        try {
+            for (Future<?> f : parserFutures) {
+                await(f);
+            }
+            // 无论解析成功与否都通知写入线程结束；失败的写入线程仍在取队列，直到取到 END
+            for (int i = 0; i < writerThreads; i++) {
+                offer(queue, RowBatch.END);
+            }
+            for (Future<?> f : writerFutures) {
+                await(f);
+            }
+        } catch (InterruptedException e) {
+            // 中断阻塞在队列上的解析、写入线程，让它们退出
+            failure.compareAndSet(null, e);
+            parsers.shutdownNow();
+            writers.shutdownNow();
+            throw e;
+        } finally {
+            parsers.shutdown();
+            writers.shutdown();
+        }
+        stats.end = System.nanoTime();
+
+        Exception e = failure.get();
+        if (e instanceof SQLException) {
+            throw (SQLException) e;
+        }
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e instanceof InterruptedException) {
+            throw (InterruptedException) e;
+        }
+        if (e != null) {
+            throw new IllegalStateException("CSV导入失败", e);
+        }
+        return stats;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    private void parse(ImportTask task, BlockingQueue<RowBatch> queue) {
+        if (failure.get() != null) {
+            return;
+        }
+        File file = task.file;
+        long start = System.nanoTime();
+        try {
+            Date date = Date.valueOf(StationFlowCsvParser.dateOf(file.getName()));
+            MappedByteBuffer buf = StationFlowCsvParser.map(file);
+            RowBatch[] current = {new RowBatch(task, 0, date, batchRows)};
+            long[] queueWait = {0L};
+            long[] rows = {0L};
+            int malformed = StationFlowCsvParser.parse(buf, (int) task.startOffset, (station, hour, in, out, offset) -> {
+                rows[0]++;
+                RowBatch batch = current[0];
+                batch.add(station, hour, in, out);
+                batch.endOffset = offset;
+                batch.rowsThrough = task.rowsBefore + rows[0];
+                if (batch.size == batchRows) {
+                    try {
+                        queueWait[0] += offer(queue, batch);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("解析被中断：" + file.getName());
+                    }
+                    current[0] = new RowBatch(task, batch.seq + 1, date, batchRows);
+                }
+            });
+            if (current[0].size > 0) {
+                queueWait[0] += offer(queue, current[0]);
+            }
+            stats.files.increment();
+            stats.parsedRows.add(rows[0]);
+            stats.malformedRows.add(malformed);
+            stats.parseNanos.add(System.nanoTime() - start - queueWait[0]);
+            stats.parseQueueWaitNanos.add(queueWait[0]);
+        } catch (InterruptedException | CancellationException e) {
+            // 中断后不再放入队列，直接结束
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new InterruptedException("解析被中断：" + file.getName()));
+        } catch (Exception e) {
+            failure.compareAndSet(null, new IOException("解析失败：" + file.getName() + "，" + e.getMessage(), e));
+        }
+    }
+
+    private void write(BlockingQueue<RowBatch> queue) {
+        try (Connection conn = connectionFactory.open()) {
+            conn.setAutoCommit(false);
+            PreparedStatement full = conn.prepareStatement(insertSql(batchRows));
+            try {
+                while (true) {
+                    long waitStart = System.nanoTime();
+                    RowBatch batch = queue.take();
+                    stats.writeQueueWaitNanos.add(System.nanoTime() - waitStart);
+                    if (batch == RowBatch.END) {
+                        return;
+                    }
+                    if (failure.get() != null) {
+                        continue; // 已失败：继续取出剩余批次，避免解析线程阻塞
+                    }
+                    long start = System.nanoTime();
+                    if (batch.size == batchRows) {
+                        batch.bind(full);
+                        full.executeUpdate();
+                    } else {
+                        try (PreparedStatement tail = conn.prepareStatement(insertSql(batch.size))) {
+                            batch.bind(tail);
+                            tail.executeUpdate();
+                        }
+                    }
+                    conn.commit();
+                    // 提交之后再推进进度，记录的偏移量之前的数据一定已落库
+                    long[] watermark = batch.task.complete(batch.seq, batch.endOffset, batch.rowsThrough);
+                    ProgressListener progress = listener;
+                    if (watermark != null && progress != null) {
+                        progress.committed(conn, batch.task, watermark[0], watermark[1]);
+                        conn.commit();
+                    }
+                    stats.writtenRows.add(batch.size);
+                    stats.batches.increment();
+                    stats.writeNanos.add(System.nanoTime() - start);
+                }
+            } finally {
+                full.close();
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 绑定参数、ProgressListener 等抛出的运行时异常同样记录；之后继续取出剩余批次直到 END，
+            // 否则写入线程都退出后解析线程会一直阻塞在队列上
+            failure.compareAndSet(null, e);
+            drain(queue);
+        }
+    }
+
+    private void drain(BlockingQueue<RowBatch> queue) {
+        try {
+            while (queue.take() != RowBatch.END) {
+                // 丢弃
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 放入队列，返回阻塞等待的纳秒数（队列满说明写入是瓶颈）；被中断时抛出，调用方停止解析
+     */
+    private static long offer(BlockingQueue<RowBatch> queue, RowBatch batch) throws InterruptedException {
+        long start = System.nanoTime();
+        queue.put(batch);
+        return System.nanoTime() - start;
+    }
+
+    private static void await(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            // 任务内部已记录到 failure
+        }
+    }
+
+    static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDER.length() + 1)
+                + UPSERT_SUFFIX.length());
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(ROW_PLACEHOLDER);
+        }
+        sql.append(UPSERT_SUFFIX);
+        return sql.toString();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 一个文件的导入任务：从 startOffset（行首）开始解析，此前已提交 rowsBefore 行
+     */
+    public static final class ImportTask {
+        final File file;
+        final long startOffset;
+        final long rowsBefore;
+
+        // 已提交但前面还有未提交批次的：批次号 → {偏移量, 累计行数}
+        private final Map<Integer, long[]> pending = new HashMap<>();
+        private int committedSeq = -1;
+
+        public ImportTask(File file, long startOffset, long rowsBefore) {
+            this.file = file;
+            this.startOffset = startOffset;
+            this.rowsBefore = rowsBefore;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * 标记批次已提交
+         *
+         * @return 连续已提交的位置有推进时返回 {偏移量, 累计行数}，否则 null
+         */
+        synchronized long[] complete(int seq, long endOffset, long rowsThrough) {
+            pending.put(seq, new long[]{endOffset, rowsThrough});
+            long[] advanced = null;
+            long[] next;
+            while ((next = pending.remove(committedSeq + 1)) != null) {
+                committedSeq++;
+                advanced = next;
+            }
+            return advanced;
+        }
+    }
+
+    /**
+     * 一批待写入的行，列式存放
+     */
+    static final class RowBatch {
+        static final RowBatch END = new RowBatch(null, 0, null, 0);
+
+        final ImportTask task;
+        final int seq;
+        final Date date;
+        final String[] station;
+        final int[] hour;
+        final int[] inNum;
+        final int[] outNum;
+        int size;
+        // 最后一行的行尾偏移量、文件内累计行数
+        long endOffset;
+        long rowsThrough;
+
+        RowBatch(ImportTask task, int seq, Date date, int capacity) {
+            this.task = task;
+            this.seq = seq;
+            this.date = date;
+            this.station = new String[capacity];
+            this.hour = new int[capacity];
+            this.inNum = new int[capacity];
+            this.outNum = new int[capacity];
+        }
+
+        void add(String s, int h, int in, int out) {
+            station[size] = s;
+            hour[size] = h;
+            inNum[size] = in;
+            outNum[size] = out;
+            size++;
+        }
+
+        void bind(PreparedStatement ps) throws SQLException {
+            int p = 1;
+            for (int i = 0; i < size; i++) {
+                ps.setDate(p++, date);
+                ps.setString(p++, station[i]);
+                ps.setInt(p++, hour[i]);
+                ps.setInt(p++, inNum[i]);
+                ps.setInt(p++, outNum[i]);
+            }
+        }
+    }
+
+    /**
+     * 各阶段吞吐统计
+     */
+    public static final class Stats {
+        final LongAdder files = new LongAdder();
+        final LongAdder parsedRows = new LongAdder();
+        final LongAdder malformedRows = new LongAdder();
+        final LongAdder batches = new LongAdder();
+        final LongAdder writtenRows = new LongAdder();
+        final LongAdder parseNanos = new LongAdder();
+        final LongAdder parseQueueWaitNanos = new LongAdder();
+        final LongAdder writeNanos = new LongAdder();
+        final LongAdder writeQueueWaitNanos = new LongAdder();
+        volatile long start;
+        volatile long end;
+
+        public long getWrittenRows() {
+            return writtenRows.sum();
+        }
+
+        public long getMalformedRows() {
+            return malformedRows.sum();
+        }
+
+        /**
+         * 解析阶段：单线程有效吞吐（扣除等待队列的时间）
+         */
+        public double parseRowsPerSecond() {
+            return rate(parsedRows.sum(), parseNanos.sum());
+        }
+
+        /**
+         * 写入阶段：单连接有效吞吐（扣除等待队列的时间）
+         */
+        public double writeRowsPerSecond() {
+            return rate(writtenRows.sum(), writeNanos.sum());
+        }
+
+        /**
+         * 端到端吞吐
+         */
+        public double totalRowsPerSecond() {
+            return rate(writtenRows.sum(), end - start);
+        }
+
+        private static double rate(long rows, long nanos) {
+            return nanos <= 0 ? 0.0 : rows * 1_000_000_000.0 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("文件 %d 个，写入 %d 行（%d 批），跳过格式错误行 %d，耗时 %d ms%n" +
+                            "  解析：%.0f 行/秒/线程，等待队列 %d ms%n" +
+                            "  写入：%.0f 行/秒/连接，等待队列 %d ms%n" +
+                            "  总计：%.0f 行/秒",
+                    files.sum(), writtenRows.sum(), batches.sum(), malformedRows.sum(), (end - start) / 1_000_000,
+                    parseRowsPerSecond(), parseQueueWaitNanos.sum() / 1_000_000,
+                    writeRowsPerSecond(), writeQueueWaitNanos.sum() / 1_000_000,
+                    totalRowsPerSecond());
+        }
+    }
+}
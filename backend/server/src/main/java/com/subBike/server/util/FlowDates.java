@@ -0,0 +1,35 @@
+package com.subBike.server.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * 日期转换工具：控制器收到的是 java.util.Date，数据库列是 DATE，内存结构统一用 LocalDate
+ */
+public final class FlowDates {
+
+    private FlowDates() {
+    }
+
+    /**
+     * java.util.Date / java.sql.Date 转 LocalDate（按系统时区取日历日）
+     */
+    public static LocalDate toLocalDate(Date date) {
+        if (date == null) {
+            return null;
+        }
+        if (date instanceof java.sql.Date) {
+            return ((java.sql.Date) date).toLocalDate();
+        }
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * LocalDate 转 java.sql.Date，与 JPQL 查询返回的 DTO 日期类型保持一致
+     */
+    public static java.sql.Date toSqlDate(LocalDate date) {
+        return date == null ? null : java.sql.Date.valueOf(date);
+    }
+}
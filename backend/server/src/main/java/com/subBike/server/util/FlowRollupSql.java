@@ -0,0 +1,53 @@
+package com.subBike.server.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 汇总表维护语句：按日期从 sub_amount 重算 station_daily_flow / daily_flow / hourly_flow
+ *
+ * 先删后插，同一日期重复导入或行被删除时结果仍与 sub_amount 一致。
+ * FlowRollupMapper（命名参数 :date）与独立运行的 CsvImportApplication（JDBC ?）共用。
+ */
+public final class FlowRollupSql {
+
+    public static final String DELETE_STATION_DAILY =
+            "DELETE FROM station_daily_flow WHERE date = :date";
+    public static final String INSERT_STATION_DAILY =
+            "INSERT INTO station_daily_flow (date, station, station_id, in_num, out_num) " +
+            "SELECT date, station, MAX(station_id), SUM(in_num), SUM(out_num) FROM sub_amount " +
+            "WHERE date = :date GROUP BY date, station";
+
+    public static final String DELETE_DAILY =
+            "DELETE FROM daily_flow WHERE date = :date";
+    public static final String INSERT_DAILY =
+            "INSERT INTO daily_flow (date, in_num, out_num) " +
+            "SELECT date, SUM(in_num), SUM(out_num) FROM sub_amount " +
+            "WHERE date = :date GROUP BY date";
+
+    public static final String DELETE_HOURLY =
+            "DELETE FROM hourly_flow WHERE date = :date";
+    public static final String INSERT_HOURLY =
+            "INSERT INTO hourly_flow (date, time, in_num, out_num) " +
+            "SELECT date, time, SUM(in_num), SUM(out_num) FROM sub_amount " +
+            "WHERE date = :date GROUP BY date, time";
+
+    /**
+     * 重算一天所需的全部语句，按执行顺序排列（先分配站点 id，站点汇总要带上 station_id）
+     */
+    public static final List<String> REBUILD_DAY = Collections.unmodifiableList(Arrays.asList(
+            StationIdSql.INSERT_MISSING_FROM_SUB_AMOUNT_DAY, StationIdSql.ASSIGN_SUB_AMOUNT_DAY,
+            DELETE_STATION_DAILY, INSERT_STATION_DAILY,
+            DELETE_DAILY, INSERT_DAILY,
+            DELETE_HOURLY, INSERT_HOURLY));
+
+    private FlowRollupSql() {}
+
+    /**
+     * 转成 JDBC 占位符形式，每条语句只有一个 date 参数
+     */
+    public static String jdbc(String sql) {
+        return sql.replace(":date", "?");
+    }
+}
@@ -0,0 +1,133 @@
+package com.subBike.server.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Geohash 编码与矩形覆盖（base32，经度先行）
+ *
+ * 同一前缀的 geohash 落在同一个格子里，按字符串排序后一个前缀对应一段连续区间，
+ * 矩形查询转成若干前缀的区间扫描。
+ */
+public final class Geohash {
+    public static final int MAX_PRECISION = 12;
+    public static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    public static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        char[] hash = new char[precision];
+        boolean even = true;
+        int bit = 0;
+        int ch = 0;
+        int i = 0;
+        while (i < precision) {
+            if (even) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            even = !even;
+            if (++bit == 5) {
+                hash[i++] = BASE32[ch];
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return new String(hash);
+    }
+
+    /**
+     * 某精度下格子的高（纬度跨度，度）
+     */
+    public static double cellHeight(int precision) {
+        return 180.0 / (1L << (5 * precision / 2));
+    }
+
+    /**
+     * 某精度下格子的宽（经度跨度，度）
+     */
+    public static double cellWidth(int precision) {
+        return 360.0 / (1L << ((5 * precision + 1) / 2));
+    }
+
+    /**
+     * 用不超过 maxCells 个格子覆盖矩形，选能满足条件的最高精度
+     * 矩形先裁剪到经纬度的合法范围；坐标不是有限值时抛出 IllegalArgumentException
+     *
+     * @return geohash 前缀集合，前缀对应的格子并集包含整个矩形
+     */
+    public static Set<String> cover(double minLat, double minLng, double maxLat, double maxLng, int maxCells) {
+        if (!Double.isFinite(minLat) || !Double.isFinite(minLng) || !Double.isFinite(maxLat) || !Double.isFinite(maxLng)) {
+            throw new IllegalArgumentException("坐标必须是有限值");
+        }
+        minLat = clamp(minLat, -90, 90);
+        maxLat = clamp(maxLat, -90, 90);
+        minLng = clamp(minLng, -180, 180);
+        maxLng = clamp(maxLng, -180, 180);
+        int precision = 1;
+        for (int p = MAX_PRECISION; p >= 1; p--) {
+            long rows = (long) Math.ceil((maxLat - minLat) / cellHeight(p)) + 1;
+            long cols = (long) Math.ceil((maxLng - minLng) / cellWidth(p)) + 1;
+            if (rows * cols <= maxCells) {
+                precision = p;
+                break;
+            }
+        }
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        // 步进次数上限：裁剪后不会超过，只防止步长被浮点误差吞掉时死循环
+        long budget = ((long) Math.ceil((maxLat - minLat) / height) + 2) * ((long) Math.ceil((maxLng - minLng) / width) + 2);
+        Set<String> cells = new LinkedHashSet<>();
+        // 按格子尺寸步进取样，最后再补上边界，保证每个相交的格子都被取到
+        for (double lat = minLat; ; lat = Math.min(lat + height, maxLat)) {
+            for (double lng = minLng; ; lng = Math.min(lng + width, maxLng)) {
+                if (--budget < 0) {
+                    throw new IllegalStateException("矩形覆盖步进次数超出上限");
+                }
+                cells.add(encode(lat, lng, precision));
+                if (lng >= maxLng) {
+                    break;
+                }
+            }
+            if (lat >= maxLat) {
+                break;
+            }
+        }
+        return cells;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * 两点间球面距离（米）
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
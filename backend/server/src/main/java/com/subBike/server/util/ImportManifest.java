@@ -0,0 +1,219 @@
+package com.subBike.server.util;
+
+import com.subBike.server.entity.ImportManifestEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * import_manifest 表的 JDBC 访问（CsvImportApplication 独立运行，不依赖 Spring 上下文）
+ *
+ * 对每个文件判断：
+ * - 已完成且大小、修改时间不变：跳过，不读文件
+ * - 大小或修改时间变了但内容哈希相同：只更新清单，跳过
+ * - 上次未完成且哈希相同：从已提交的偏移量继续
+ * - 内容哈希变了：先删除该日期已有的 sub_amount 行，再从头导入（新文件里没有的行不能留下）
+ * - 其余情况：从头导入（写入为 upsert，重复导入不会产生重复行）
+ */
+public class ImportManifest implements CsvIngestPipeline.ProgressListener {
+
+    private static final String CREATE_SQL =
+            "CREATE TABLE IF NOT EXISTS import_manifest ("
+                    + " file_name VARCHAR(255) NOT NULL PRIMARY KEY,"
+                    + " file_size BIGINT, modified_at BIGINT, sha256 VARCHAR(64),"
+                    + " rows_committed BIGINT, committed_offset BIGINT,"
+                    + " status VARCHAR(16), updated_at DATETIME(6))";
+    private static final String LOAD_SQL =
+            "SELECT file_name, file_size, modified_at, sha256, rows_committed, committed_offset, status"
+                    + " FROM import_manifest";
+    private static final String BEGIN_SQL =
+            "INSERT INTO import_manifest"
+                    + " (file_name, file_size, modified_at, sha256, rows_committed, committed_offset, status, updated_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP(6))"
+                    + " ON DUPLICATE KEY UPDATE file_size = VALUES(file_size), modified_at = VALUES(modified_at),"
+                    + " sha256 = VALUES(sha256), rows_committed = VALUES(rows_committed),"
+                    + " committed_offset = VALUES(committed_offset), status = VALUES(status),"
+                    + " updated_at = VALUES(updated_at)";
+    // 多个写入线程可能乱序提交同一文件的进度，只允许前进
+    private static final String COMMITTED_SQL =
+            "UPDATE import_manifest SET committed_offset = GREATEST(committed_offset, ?),"
+                    + " rows_committed = GREATEST(rows_committed, ?), updated_at = CURRENT_TIMESTAMP(6)"
+                    + " WHERE file_name = ?";
+    // 每个文件对应一天（文件名中的日期）
+    private static final String CLEAR_DAY_SQL = "DELETE FROM sub_amount WHERE date = ?";
+    private static final String DONE_SQL =
+            "UPDATE import_manifest SET status = ?, updated_at = CURRENT_TIMESTAMP(6) WHERE file_name = ?";
+
+    private final Map<String, ImportManifestEntry> entries = new HashMap<>();
+
+    /**
+     * 建表（如不存在）并读入全部记录
+     */
+    public void load(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute(CREATE_SQL);
+            try (ResultSet rs = st.executeQuery(LOAD_SQL)) {
+                while (rs.next()) {
+                    ImportManifestEntry entry = new ImportManifestEntry();
+                    entry.setFileName(rs.getString(1));
+                    entry.setFileSize(rs.getLong(2));
+                    entry.setModifiedAt(rs.getLong(3));
+                    entry.setSha256(rs.getString(4));
+                    entry.setRowsCommitted(rs.getLong(5));
+                    entry.setCommittedOffset(rs.getLong(6));
+                    entry.setStatus(ImportManifestEntry.Status.valueOf(rs.getString(7)));
+                    entries.put(entry.getFileName(), entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * 根据清单决定文件如何导入
+     *
+     * @return 需要导入时返回计划（可能从中间继续），无需导入返回 null
+     */
+    public Plan plan(Connection conn, File file) throws IOException, SQLException {
+        long size = file.length();
+        long modified = file.lastModified();
+        ImportManifestEntry entry = entries.get(file.getName());
+        if (entry != null && entry.getStatus() == ImportManifestEntry.Status.DONE
+                && entry.getFileSize() == size && entry.getModifiedAt() == modified) {
+            return null;
+        }
+        String sha256 = sha256(file);
+        if (entry != null && sha256.equals(entry.getSha256())) {
+            if (entry.getStatus() == ImportManifestEntry.Status.DONE) {
+                // 只是被 touch 过，内容没变
+                write(conn, file.getName(), size, modified, sha256,
+                        entry.getRowsCommitted(), entry.getCommittedOffset(), ImportManifestEntry.Status.DONE);
+                return null;
+            }
+            return new Plan(new CsvIngestPipeline.ImportTask(file, entry.getCommittedOffset(), entry.getRowsCommitted()),
+                    size, modified, sha256);
+        }
+        Plan plan = new Plan(new CsvIngestPipeline.ImportTask(file, 0L, 0L), size, modified, sha256);
+        plan.replace = entry != null;
+        return plan;
+    }
+
+    /**
+     * 导入开始前登记为 IN_PROGRESS；内容变了的文件在同一事务里先清掉这一天的旧数据
+     */
+    public void begin(Connection conn, Plan plan) throws SQLException {
+        CsvIngestPipeline.ImportTask task = plan.task;
+        if (!plan.replace) {
+            write(conn, task.getFile().getName(), plan.size, plan.modified, plan.sha256,
+                    task.rowsBefore, task.startOffset, ImportManifestEntry.Status.IN_PROGRESS);
+            return;
+        }
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement ps = conn.prepareStatement(CLEAR_DAY_SQL)) {
+                ps.setDate(1, Date.valueOf(StationFlowCsvParser.dateOf(task.getFile().getName())));
+                ps.executeUpdate();
+            }
+            write(conn, task.getFile().getName(), plan.size, plan.modified, plan.sha256,
+                    task.rowsBefore, task.startOffset, ImportManifestEntry.Status.IN_PROGRESS);
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    @Override
+    public void committed(Connection conn, CsvIngestPipeline.ImportTask task, long offset, long rows)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(COMMITTED_SQL)) {
+            ps.setLong(1, offset);
+            ps.setLong(2, rows);
+            ps.setString(3, task.getFile().getName());
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * 文件全部写入后标记为 DONE
+     */
+    public void done(Connection conn, Plan plan) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(DONE_SQL)) {
+            ps.setString(1, ImportManifestEntry.Status.DONE.name());
+            ps.setString(2, plan.task.getFile().getName());
+            ps.executeUpdate();
+        }
+    }
+
+    private static void write(Connection conn, String fileName, long size, long modified, String sha256,
+                              long rows, long offset, ImportManifestEntry.Status status) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(BEGIN_SQL)) {
+            ps.setString(1, fileName);
+            ps.setLong(2, size);
+            ps.setLong(3, modified);
+            ps.setString(4, sha256);
+            ps.setLong(5, rows);
+            ps.setLong(6, offset);
+            ps.setString(7, status.name());
+            ps.executeUpdate();
+        }
+    }
+
+    static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                digest.update(buf, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 单个文件的导入计划
+     */
+    public static final class Plan {
+        final CsvIngestPipeline.ImportTask task;
+        final long size;
+        final long modified;
+        final String sha256;
+        // 清单里有记录但内容哈希变了
+        boolean replace;
+
+        Plan(CsvIngestPipeline.ImportTask task, long size, long modified, String sha256) {
+            this.task = task;
+            this.size = size;
+            this.modified = modified;
+            this.sha256 = sha256;
+        }
+
+        public CsvIngestPipeline.ImportTask getTask() {
+            return task;
+        }
+
+        public boolean isResume() {
+            return task.startOffset > 0;
+        }
+
+        public boolean isReplace() {
+            return replace;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.subBike.server.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * station_flow_*.csv 的手写解析器，直接在内存映射的字节上扫描
+ *
+ * 文件格式：station,hour,in_count,out_count（首行为表头，可能带 UTF-8 BOM，站名可能带引号）。
+ * 与原来 line.split(正则) 的做法相比，不创建行字符串和字段数组，
+ * 同一站点连续 24 行的站名只解码一次。
+ */
+public final class StationFlowCsvParser {
+    public static final String FILE_PREFIX = "station_flow_";
+    public static final String FILE_SUFFIX = ".csv";
+
+    // 文件名中的日期："2019-May-01"
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MMM-dd", Locale.US);
+
+    private static final int FIELDS = 4;
+
+    /**
+     * 每解析出一行回调一次
+     */
+    public interface RowHandler {
+        void row(String station, int hour, int inNum, int outNum, int lineEndOffset);
+    }
+
+    private StationFlowCsvParser() {
+    }
+
+    public static boolean isStationFlowFile(String name) {
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+
+    /**
+     * 从文件名提取日期，如 station_flow_2019-May-01.csv -> 2019-05-01
+     */
+    public static LocalDate dateOf(String fileName) {
+        String dateStr = fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length());
+        try {
+            return LocalDate.parse(dateStr, FILE_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无法从文件名解析日期：" + fileName, e);
+        }
+    }
+
+    /**
+     * 只读映射整个文件
+     */
+    public static MappedByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("文件过大，无法映射：" + file.getName());
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    /**
+     * 解析缓冲区中的全部数据行
+     *
+     * @return 跳过的格式错误行数
+     */
+    public static int parse(ByteBuffer buf, RowHandler handler) {
+        return parse(buf, 0, handler);
+    }
+
+    /**
+     * 从 startOffset 开始解析（startOffset 必须是行首；为 0 时跳过 BOM 和表头）
+     *
+     * @return 跳过的格式错误行数
+     */
+    public static int parse(ByteBuffer buf, int startOffset, RowHandler handler) {
+        int limit = buf.limit();
+        int pos = startOffset;
+        if (pos == 0) {
+            if (limit >= 3 && (buf.get(0) & 0xFF) == 0xEF && (buf.get(1) & 0xFF) == 0xBB && (buf.get(2) & 0xFF) == 0xBF) {
+                pos = 3;
+            }
+            pos = nextLine(buf, pos, limit); // 表头
+        }
+
+        int[] start = new int[FIELDS];
+        int[] end = new int[FIELDS];
+        byte[] lastStationBytes = new byte[0];
+        String lastStation = null;
+        int malformed = 0;
+
+        while (pos < limit) {
+            int lineEnd = pos;
+            int field = 0;
+            boolean quoted = false;
+            start[0] = pos;
+            // 扫描一行，记录各字段边界；引号内的逗号不作为分隔符
+            while (lineEnd < limit) {
+                byte b = buf.get(lineEnd);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && b == ',') {
+                    if (field < FIELDS) {
+                        end[field] = lineEnd;
+                    }
+                    field++;
+                    if (field < FIELDS) {
+                        start[field] = lineEnd + 1;
+                    }
+                } else if (!quoted && (b == '\n' || b == '\r')) {
+                    break;
+                }
+                lineEnd++;
+            }
+            if (field < FIELDS) {
+                end[field] = lineEnd;
+            }
+            int next = nextLineFrom(buf, lineEnd, limit);
+
+            if (lineEnd == pos) {
+                pos = next; // 空行
+                continue;
+            }
+            if (field + 1 < FIELDS) {
+                malformed++;
+                pos = next;
+                continue;
+            }
+
+            int hour = parseInt(buf, start[1], end[1]);
+            int in = parseInt(buf, start[2], end[2]);
+            int out = parseInt(buf, start[3], end[3]);
+            if (hour == Integer.MIN_VALUE || in == Integer.MIN_VALUE || out == Integer.MIN_VALUE) {
+                malformed++;
+                pos = next;
+                continue;
+            }
+
+            // 站名：去掉首尾空白和引号；与上一行相同时复用已解码的字符串
+            int s = start[0];
+            int e = end[0];
+            while (s < e && isTrim(buf.get(s))) s++;
+            while (e > s && isTrim(buf.get(e - 1))) e--;
+            if (e - s >= 2 && buf.get(s) == '"' && buf.get(e - 1) == '"') {
+                s++;
+                e--;
+            }
+            if (!sameBytes(buf, s, e, lastStationBytes)) {
+                lastStationBytes = new byte[e - s];
+                buf.get(s, lastStationBytes);
+                lastStation = new String(lastStationBytes, StandardCharsets.UTF_8);
+            }
+
+            handler.row(lastStation, hour, in, out, next);
+            pos = next;
+        }
+        return malformed;
+    }
+
+    private static int nextLine(ByteBuffer buf, int pos, int limit) {
+        while (pos < limit && buf.get(pos) != '\n' && buf.get(pos) != '\r') {
+            pos++;
+        }
+        return nextLineFrom(buf, pos, limit);
+    }
+
+    private static int nextLineFrom(ByteBuffer buf, int pos, int limit) {
+        if (pos < limit && buf.get(pos) == '\r') pos++;
+        if (pos < limit && buf.get(pos) == '\n') pos++;
+        return pos;
+    }
+
+    private static boolean isTrim(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean sameBytes(ByteBuffer buf, int from, int to, byte[] bytes) {
+        if (to - from != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buf.get(from + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析 [from, to) 内的非负/负整数，允许首尾空白和引号；格式错误返回 Integer.MIN_VALUE
+     */
+    private static int parseInt(ByteBuffer buf, int from, int to) {
+        while (from < to && (isTrim(buf.get(from)) || buf.get(from) == '"')) from++;
+        while (to > from && (isTrim(buf.get(to - 1)) || buf.get(to - 1) == '"')) to--;
+        if (from >= to) {
+            return Integer.MIN_VALUE;
+        }
+        boolean negative = buf.get(from) == '-';
+        if (negative && ++from >= to) {
+            return Integer.MIN_VALUE;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                return Integer.MIN_VALUE;
+            }
+            value = value * 10 + d;
+            if (value > Integer.MAX_VALUE) {
+                return Integer.MIN_VALUE;
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+}
@@ -0,0 +1,46 @@
+package com.subBike.server.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 站名 → stations.id 的分配语句：先把未登记的站名插入 stations，再回填各表的 station_id
+ *
+ * 按日期的语句（命名参数 :date）在导入后与汇总表一起执行，见 FlowRollupSql.REBUILD_DAY；
+ * 全表语句只处理 station_id 为空的行，用于启动时回填历史数据。
+ */
+public final class StationIdSql {
+
+    public static final String INSERT_MISSING_FROM_SUB_AMOUNT_DAY =
+            "INSERT INTO stations (name) SELECT DISTINCT s.station FROM sub_amount s " +
+            "WHERE s.date = :date AND NOT EXISTS (SELECT 1 FROM stations st WHERE st.name = s.station)";
+    public static final String ASSIGN_SUB_AMOUNT_DAY =
+            "UPDATE sub_amount SET station_id = (SELECT st.id FROM stations st WHERE st.name = sub_amount.station) " +
+            "WHERE date = :date AND station_id IS NULL";
+
+    public static final String INSERT_MISSING_FROM_BIKE_AMOUNT_DAY =
+            "INSERT INTO stations (name) SELECT DISTINCT b.station FROM bike_amount b " +
+            "WHERE b.date = :date AND NOT EXISTS (SELECT 1 FROM stations st WHERE st.name = b.station)";
+    public static final String ASSIGN_BIKE_AMOUNT_DAY =
+            "UPDATE bike_amount SET station_id = (SELECT st.id FROM stations st WHERE st.name = bike_amount.station) " +
+            "WHERE date = :date AND station_id IS NULL";
+
+    /**
+     * 启动回填：所有 station_id 为空的行
+     */
+    public static final List<String> BACKFILL = Collections.unmodifiableList(Arrays.asList(
+            "INSERT INTO stations (name) SELECT DISTINCT s.station FROM sub_amount s " +
+            "WHERE s.station_id IS NULL AND NOT EXISTS (SELECT 1 FROM stations st WHERE st.name = s.station)",
+            "INSERT INTO stations (name) SELECT DISTINCT b.station FROM bike_amount b " +
+            "WHERE b.station_id IS NULL AND NOT EXISTS (SELECT 1 FROM stations st WHERE st.name = b.station)",
+            "UPDATE sub_amount SET station_id = (SELECT st.id FROM stations st WHERE st.name = sub_amount.station) " +
+            "WHERE station_id IS NULL",
+            "UPDATE bike_amount SET station_id = (SELECT st.id FROM stations st WHERE st.name = bike_amount.station) " +
+            "WHERE station_id IS NULL",
+            "UPDATE station_daily_flow SET station_id = " +
+            "(SELECT st.id FROM stations st WHERE st.name = station_daily_flow.station) " +
+            "WHERE station_id IS NULL"));
+
+    private StationIdSql() {}
+}
@@ -0,0 +1,151 @@
+package com.subBike.server.stream;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kafka 闸机事件 → 小时窗口 → 水位之后写入 sub_amount 的完整链路（内嵌 Kafka + H2）
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gate-events;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.devtools.restart.enabled=false",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.auto-offset-reset=earliest",
+        "subway.stream.enabled=true",
+        "subway.stream.flush-interval=PT0.2S",
+        "subway.stream.allowed-lateness=5m",
+        "subway.stream.max-event-ahead=5m",
+        "subway.rollup.backfill=false",
+        "subway.station-ids.backfill=false",
+        "subway.predict.vector-backfill=false",
+        "subway.metrics.slow-query.enabled=false",
+        // 内嵌 broker 关闭时的目录清理告警
+        "logging.level.kafka=error",
+        "logging.level.org.apache.kafka=error"
+})
+@EmbeddedKafka(partitions = 1, topics = "gate-events")
+// 两个用例共用同一个上下文和水位：先跑 2019 年的事件，未来事件之后水位会越过它们
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class GateEventPipelineTest {
+    private static final String TOPIC = "gate-events";
+    private static final long TIMEOUT_MS = 30_000;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private LiveFlowWindows windows;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Order(1)
+    void eventsAreWindowedThenFlushedAfterTheWatermark() throws Exception {
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            ContainerTestUtils.waitForAssignment(container, broker.getPartitionsPerTopic());
+        }
+        LocalDate day = LocalDate.of(2019, 5, 1);
+
+        // 08:00 窗口：水位 08:10，窗口未关闭，只在内存里
+        send("测试站", "IN", day.atTime(8, 15), 3);
+        send("测试站", "OUT", day.atTime(8, 40), 2);
+        awaitTrue(() -> cell(day, "测试站", 8) != null && cell(day, "测试站", 8)[0] == 3
+                && cell(day, "测试站", 8)[1] == 2, "events reach the 08:00 window");
+        assertEquals(0, rows(day, "测试站", 8));
+
+        // 09:10 的事件把水位推进到 09:05，08:00 窗口关闭并写入 sub_amount
+        send("测试站", "IN", day.atTime(9, 10), 1);
+        awaitTrue(() -> rows(day, "测试站", 8) == 1, "08:00 window flushed to sub_amount");
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT in_num, out_num FROM sub_amount WHERE date = ? AND station = ? AND time = ?",
+                java.sql.Date.valueOf(day), "测试站", 8);
+        assertEquals(3, ((Number) row.get("in_num")).intValue());
+        assertEquals(2, ((Number) row.get("out_num")).intValue());
+        assertNull(cell(day, "测试站", 8));
+    }
+
+    @Test
+    @Order(2)
+    void farFutureEventDoesNotCloseOpenWindows() throws Exception {
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            ContainerTestUtils.waitForAssignment(container, broker.getPartitionsPerTopic());
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        send("当前站", "IN", now, 1);
+        awaitTrue(() -> cell(now.toLocalDate(), "当前站", now.getHour()) != null, "event reaches the current window");
+
+        // 时钟错误的闸机：水位最多推进到 now + max-event-ahead - allowed-lateness，当前小时的窗口不关闭
+        send("未来站", "IN", now.plusYears(10), 1);
+        awaitTrue(() -> cell(now.plusYears(10).toLocalDate(), "未来站", now.getHour()) != null,
+                "future event is still counted");
+        Thread.sleep(1000);
+        assertNotNull(cell(now.toLocalDate(), "当前站", now.getHour()));
+        assertEquals(0, rows(now.toLocalDate(), "当前站", now.getHour()));
+    }
+
+    private void send(String station, String direction, LocalDateTime time, int count) throws Exception {
+        String json = "{\"station\":\"" + station + "\",\"gate\":\"A1\",\"direction\":\"" + direction
+                + "\",\"time\":\"" + time + "\",\"count\":" + count + "}";
+        kafkaTemplate.send(TOPIC, station, json).get();
+    }
+
+    // 尚未落库的窗口里某站某小时的 {进站, 出站}，没有时返回 null
+    private long[] cell(LocalDate day, String station, int hour) {
+        Map<Integer, long[]> cells = new HashMap<>();
+        windows.forEachCell(day, day, (name, h, in, out) -> {
+            if (name.equals(station)) {
+                cells.put(h, new long[]{in, out});
+            }
+        });
+        return cells.get(hour);
+    }
+
+    private int rows(LocalDate day, String station, int hour) {
+        List<Integer> count = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM sub_amount WHERE date = ? AND station = ? AND time = ?",
+                Integer.class, java.sql.Date.valueOf(day), station, hour);
+        return count.get(0);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting until " + what);
+            }
+            Thread.sleep(100);
+        }
+    }
+}